@@ -0,0 +1,25 @@
+package com.sky.constant;
+
+/**
+ * 缓存名称常量
+ */
+public class CacheConstant {
+
+    //用户端按分类缓存的菜品列表
+    public static final String DISH_CACHE = "dishCache";
+
+    //用户端按分类缓存的套餐列表
+    public static final String SETMEAL_CACHE = "setmealCache";
+
+    //用户端按套餐id缓存的套餐菜品列表
+    public static final String SETMEAL_DISH_CACHE = "setmealDishCache";
+
+    //用户端按类型缓存的分类列表
+    public static final String CATEGORY_CACHE = "categoryCache";
+
+    //查询全部类型分类时使用的缓存key
+    public static final String ALL_CATEGORY_KEY = "all";
+
+    //MyBatis二级缓存在跨节点失效消息中的缓存名称前缀，后接mapper命名空间
+    public static final String MYBATIS_CACHE_PREFIX = "mybatis:";
+}
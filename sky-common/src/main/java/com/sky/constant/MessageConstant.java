@@ -23,5 +23,17 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String DISH_NOT_FOUND = "菜品不存在";
+    public static final String SETMEAL_NOT_FOUND = "套餐不存在";
     public static final String ALREADY_EXIST = "已存在";
+    public static final String PAGE_CURSOR_INVALID = "分页游标无效";
+    public static final String IMPORT_FILE_INVALID = "导入文件无法读取，请上传xlsx格式的文件";
+    public static final String CART_ITEM_UNAVAILABLE = "商品不存在或已停售";
+    public static final String ORDER_CANCELLED = "订单已取消";
+    public static final String ORDER_PAYMENT_TIMEOUT = "订单超时未支付，自动取消";
+    public static final String ORDER_PAID = "该订单已支付";
+    public static final String REMINDER_TOO_FREQUENT = "催单过于频繁，请稍后再试";
+    public static final String REQUEST_TOKEN_MISSING = "缺少请求令牌";
+    public static final String REQUEST_TOKEN_INVALID = "请求令牌无效或已过期";
+    public static final String REQUEST_IN_PROGRESS = "请求正在处理中，请稍后查看结果";
 }
@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 要操作的菜品、套餐等数据不存在
+ */
+public class DataNotFoundException extends BaseException {
+
+    public DataNotFoundException(String msg) {
+        super(msg);
+    }
+
+}
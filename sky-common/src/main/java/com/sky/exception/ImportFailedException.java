@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 批量导入失败
+ */
+public class ImportFailedException extends BaseException {
+
+    public ImportFailedException(String msg) {
+        super(msg);
+    }
+
+}
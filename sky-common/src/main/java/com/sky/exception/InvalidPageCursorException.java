@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 分页游标无效
+ */
+public class InvalidPageCursorException extends BaseException {
+
+    public InvalidPageCursorException(String msg) {
+        super(msg);
+    }
+
+}
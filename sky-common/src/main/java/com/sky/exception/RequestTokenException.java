@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 请求令牌缺失、无效，或同一令牌的请求仍在处理中
+ */
+public class RequestTokenException extends BaseException {
+
+    public RequestTokenException(String msg) {
+        super(msg);
+    }
+
+}
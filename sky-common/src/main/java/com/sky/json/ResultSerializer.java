@@ -0,0 +1,28 @@
+package com.sky.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sky.result.Result;
+
+/**
+ * 将数据包装为Result后直接序列化为响应体字节，缓存命中时可原样写回，无需再经过Jackson
+ */
+public class ResultSerializer {
+
+    private static final JacksonObjectMapper OBJECT_MAPPER = new JacksonObjectMapper();
+
+    private ResultSerializer() {
+    }
+
+    /**
+     * 序列化成功结果
+     * @param data
+     * @return 与HTTP响应一致的JSON字节
+     */
+    public static byte[] success(Object data) {
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(Result.success(data));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("响应数据序列化失败", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "sky.datasource.routing")
+@Data
+public class DataSourceRoutingProperties {
+
+    /**
+     * 从库列表，为空时所有读写都走主库
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * 从库复制延迟超过该值（秒）时不再路由读请求，回退到主库
+     */
+    private long maxReplicationLagSeconds = 3;
+
+    /**
+     * 检查从库复制延迟的间隔（毫秒）
+     */
+    private long lagCheckIntervalMillis = 1000;
+
+    /**
+     * 是否检查从库复制延迟。本地用两个未配置复制的实例联调时可以关闭，关闭后从库始终可用
+     */
+    private boolean lagCheckEnabled = true;
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        /**
+         * 为空时使用主库的用户名、密码
+         */
+        private String username;
+
+        private String password;
+    }
+
+}
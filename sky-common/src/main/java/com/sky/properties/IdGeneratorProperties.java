@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.id")
+@Data
+public class IdGeneratorProperties {
+
+    /**
+     * 本节点的id（0到1023），小于0时启动时从Redis租用一个空闲的节点id
+     */
+    private long nodeId = -1;
+
+    /**
+     * Redis中节点id租约key的前缀，后接节点id
+     */
+    private String leaseKeyPrefix = "sky:id:node:";
+
+    /**
+     * 租约有效期（秒），每三分之一有效期续租一次
+     */
+    private long leaseSeconds = 30;
+
+}
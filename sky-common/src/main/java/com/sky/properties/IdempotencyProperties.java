@@ -0,0 +1,39 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.idempotency")
+@Data
+public class IdempotencyProperties {
+
+    /**
+     * 客户端传递请求令牌的请求头
+     */
+    private String tokenHeader = "Idempotency-Token";
+
+    private String keyPrefix = "sky:idempotency:";
+
+    /**
+     * 令牌及其缓存结果的有效期（秒），每次请求完成后重新计时
+     */
+    private long ttlSeconds = 1800;
+
+    /**
+     * 首个请求的处理时限（秒），超过后认为处理节点已失效，重复请求可以重新处理
+     */
+    private long runningTimeoutSeconds = 60;
+
+    /**
+     * 重复请求等待首个请求完成的最长时间（毫秒）
+     */
+    private long waitMillis = 3000;
+
+    /**
+     * 等待期间查询处理结果的间隔（毫秒）
+     */
+    private long pollMillis = 50;
+
+}
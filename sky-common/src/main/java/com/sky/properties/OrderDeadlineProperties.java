@@ -0,0 +1,52 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order.deadline")
+@Data
+public class OrderDeadlineProperties {
+
+    /**
+     * 下单后超过该时间（分钟）仍未支付则自动取消
+     */
+    private long paymentTimeoutMinutes = 15;
+
+    /**
+     * 派送后超过该时间（分钟）自动完成
+     */
+    private long deliveryTimeoutMinutes = 60;
+
+    /**
+     * 保存未支付订单截止时间的有序集合，分值为截止时间毫秒数，成员为订单id
+     */
+    private String paymentKey = "sky:order:deadline:payment";
+
+    /**
+     * 保存派送中订单截止时间的有序集合
+     */
+    private String deliveryKey = "sky:order:deadline:delivery";
+
+    /**
+     * 时间轮每格的时长（毫秒），即截止时间的触发精度
+     */
+    private long tickMillis = 1000;
+
+    /**
+     * 从Redis补漏已到期订单、预取即将到期订单的间隔（秒）
+     */
+    private long sweepIntervalSeconds = 10;
+
+    /**
+     * 每次预取未来多长时间（秒）内到期的订单放入本地时间轮
+     */
+    private long prefetchSeconds = 60;
+
+    /**
+     * 每批认领并处理的订单数
+     */
+    private int batchSize = 500;
+
+}
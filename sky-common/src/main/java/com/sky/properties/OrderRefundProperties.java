@@ -0,0 +1,32 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order.refund")
+@Data
+public class OrderRefundProperties {
+
+    /**
+     * 保存待退款订单的有序集合，分值为登记或上次尝试的时间毫秒数，成员为订单id
+     */
+    private String pendingKey = "sky:order:refund:pending";
+
+    /**
+     * 补偿任务的执行间隔（秒）
+     */
+    private long retryIntervalSeconds = 60;
+
+    /**
+     * 登记或上次尝试后超过该时间（秒）仍未完成的退款才由补偿任务处理，避免与正在进行的取消请求重复退款
+     */
+    private long graceSeconds = 30;
+
+    /**
+     * 补偿任务每批处理的订单数
+     */
+    private int batchSize = 100;
+
+}
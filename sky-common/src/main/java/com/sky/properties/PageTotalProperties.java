@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.page")
+@Data
+public class PageTotalProperties {
+
+    /**
+     * 分页总记录数的缓存时间（秒），0表示不缓存
+     */
+    private long totalCacheSeconds = 30;
+
+    /**
+     * 缓存的查询条件组合的最大个数
+     */
+    private long totalCacheMaximumSize = 1000;
+
+    /**
+     * 无查询条件时是否使用information_schema中的估算行数代替COUNT(*)
+     */
+    private boolean estimateUnfilteredTotal = false;
+
+}
@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.search")
+@Data
+public class SearchProperties {
+
+    /**
+     * 跨节点同步名称索引变化使用的Redis频道
+     */
+    private String indexChannel = "sky:search:index";
+
+    /**
+     * 分页查询按名称过滤时，索引命中的id不超过该数量才改用id过滤，否则仍使用like
+     */
+    private int maxIdFilterSize = 1000;
+
+    /**
+     * 检查数据库中菜品、套餐是否有变化的间隔（秒），有变化时重建本节点索引，兜底同步消息丢失的情况
+     */
+    private long verifyIntervalSeconds = 60;
+
+}
@@ -0,0 +1,37 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cart")
+@Data
+public class ShoppingCartProperties {
+
+    /**
+     * 用户购物车hash的key前缀，后接用户id
+     */
+    private String keyPrefix = "sky:cart:";
+
+    /**
+     * 有未持久化修改的用户id集合
+     */
+    private String dirtyKey = "sky:cart:dirty";
+
+    /**
+     * 购物车在Redis中无操作后的过期时间（秒），过期后再次访问时从数据库重新加载
+     */
+    private long expireSeconds = 7 * 24 * 3600;
+
+    /**
+     * 把修改过的购物车写回数据库的间隔（毫秒）
+     */
+    private long flushIntervalMillis = 2000;
+
+    /**
+     * 每次从待写回集合中取出的用户数
+     */
+    private int flushBatchSize = 200;
+
+}
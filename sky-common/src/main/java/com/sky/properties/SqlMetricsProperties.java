@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.sql")
+@Data
+public class SqlMetricsProperties {
+
+    /**
+     * 是否统计每条mapper语句的耗时
+     */
+    private boolean metricsEnabled = true;
+
+    /**
+     * 慢查询阈值（毫秒），超过时记录语句和参数，0表示不记录
+     */
+    private long slowThresholdMillis = 200;
+
+    /**
+     * 慢查询日志中单个参数值的最大长度，超过时截断
+     */
+    private int maxParameterLength = 200;
+
+}
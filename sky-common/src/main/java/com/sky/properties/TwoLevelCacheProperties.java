@@ -0,0 +1,62 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cache")
+@Data
+public class TwoLevelCacheProperties {
+
+    /**
+     * 一级缓存（进程内Caffeine）每个缓存的最大条目数
+     */
+    private long l1MaximumSize = 10000;
+
+    /**
+     * 一级缓存写入后的过期时间（秒），兜底跨节点失效消息丢失的情况
+     */
+    private long l1ExpireSeconds = 300;
+
+    /**
+     * 二级缓存（Redis）写入后的过期时间（秒），兜底失效消息丢失或过期值被写回的情况
+     */
+    private long l2ExpireSeconds = 3600;
+
+    /**
+     * 跨节点缓存失效消息使用的Redis频道
+     */
+    private String evictChannel = "sky:cache:evict";
+
+    /**
+     * 提前刷新系数（XFetch算法中的beta），越大越早刷新，0表示关闭提前刷新
+     */
+    private double refreshAheadBeta = 1.0;
+
+    /**
+     * 执行提前刷新的线程数
+     */
+    private int refreshThreads = 2;
+
+    /**
+     * 提前刷新任务队列容量，队列满时放弃刷新
+     */
+    private int refreshQueueCapacity = 256;
+
+    /**
+     * 启动时是否预热用户端商品目录缓存
+     */
+    private boolean warmUpEnabled = true;
+
+    /**
+     * 预热缓存的并发线程数
+     */
+    private int warmUpThreads = 4;
+
+    /**
+     * 后台预热任务队列容量，队列满时放弃预热，由用户请求按需加载
+     */
+    private int warmUpQueueCapacity = 64;
+
+}
@@ -0,0 +1,47 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.websocket")
+@Data
+public class WebSocketProperties {
+
+    /**
+     * 管理端订单推送的WebSocket地址，连接时以token参数携带管理端jwt令牌
+     */
+    private String path = "/ws/admin";
+
+    /**
+     * 跨节点转发推送消息的Redis频道
+     */
+    private String channel = "sky:ws:order";
+
+    /**
+     * 每个连接待发送消息的队列容量，队列满时断开该连接
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 一帧最多合并的消息数
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * 一帧发送的超时时间（毫秒），超时后断开该连接
+     */
+    private long sendTimeoutMillis = 5000;
+
+    /**
+     * 催单限流的Redis key前缀，后接订单id
+     */
+    private String reminderKeyPrefix = "sky:order:reminder:";
+
+    /**
+     * 同一订单两次催单的最小间隔（秒）
+     */
+    private long reminderIntervalSeconds = 60;
+
+}
@@ -0,0 +1,50 @@
+package com.sky.result;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.InvalidPageCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页的续查位置：上一页最后一条记录的(create_time, id)。
+ * 对外以Base64编码的字符串传递，客户端原样回传即可
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageCursor implements Serializable {
+
+    private LocalDateTime createTime;
+
+    private Long id;
+
+    public String encode() {
+        String raw = createTime + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端回传的游标
+     * @param cursor 为空表示查询第一页
+     * @return 第一页时返回null
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(',');
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, split)), Long.valueOf(raw.substring(split + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidPageCursorException(MessageConstant.PAGE_CURSOR_INVALID);
+        }
+    }
+}
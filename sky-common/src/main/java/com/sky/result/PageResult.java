@@ -19,4 +19,11 @@ public class PageResult implements Serializable {
 
     private List records; //当前页数据集合
 
+    private boolean estimated; //总记录数是否为估算值
+
+    public PageResult(long total, List records) {
+        this.total = total;
+        this.records = records;
+    }
+
 }
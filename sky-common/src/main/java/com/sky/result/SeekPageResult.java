@@ -0,0 +1,58 @@
+package com.sky.result;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 封装游标分页查询结果。
+ * 按(create_time, id)从上一页末尾继续读取，不统计总记录数，也不使用OFFSET，翻到多深查询代价都一样
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeekPageResult implements Serializable {
+
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private List records; //当前页数据集合
+
+    private String nextCursor; //查询下一页时回传的游标，没有下一页时为null
+
+    private boolean hasMore; //是否还有下一页
+
+    /**
+     * 修正客户端传入的每页记录数
+     * @param pageSize
+     * @return
+     */
+    public static int normalizePageSize(int pageSize) {
+        if (pageSize <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 根据多查一条的结果构造分页结果
+     * @param rows 按pageSize + 1条查询出的数据
+     * @param pageSize 每页记录数
+     * @param cursorOf 由记录生成游标
+     * @return
+     */
+    public static <T> SeekPageResult of(List<T> rows, int pageSize, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new SeekPageResult(rows, null, false);
+        }
+        List<T> records = new ArrayList<>(rows.subList(0, pageSize));
+        String nextCursor = cursorOf.apply(records.get(pageSize - 1)).encode();
+        return new SeekPageResult(records, nextCursor, true);
+    }
+}
@@ -0,0 +1,35 @@
+package com.sky.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchUtil {
+
+    /**
+     * 单条SQL中IN列表的最大元素个数，超过时分批执行，避免语句过长
+     */
+    public static final int MAX_IN_LIST_SIZE = 500;
+
+    /**
+     * 把列表按固定大小切分，返回的每一段都是原列表的视图
+     *
+     * @param list
+     * @param size 每段的最大元素个数
+     * @return
+     */
+    public static <T> List<List<T>> partition(List<T> list, int size) {
+        if (list == null || list.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (list.size() <= size) {
+            return Collections.singletonList(list);
+        }
+        List<List<T>> chunks = new ArrayList<>((list.size() + size - 1) / size);
+        for (int from = 0; from < list.size(); from += size) {
+            chunks.add(list.subList(from, Math.min(from + size, list.size())));
+        }
+        return chunks;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.sky.utils;
+
+import java.nio.charset.Charset;
+
+/**
+ * 汉字拼音首字母工具。
+ * GB2312一级汉字按拼音排序，根据汉字的GB2312编码落在哪个区间即可得到首字母，不需要引入拼音字典
+ */
+public class PinyinUtil {
+
+    private static final Charset GB2312 = Charset.forName("GB2312");
+
+    //常用汉字区间
+    private static final char CJK_START = '\u4E00';
+    private static final char CJK_END = '\u9FA5';
+
+    //各首字母在GB2312一级汉字中的起始编码，最后一个为一级汉字的结束编码
+    private static final int[] BOUNDARIES = {
+            0xB0A1, 0xB0C5, 0xB2C1, 0xB4EE, 0xB6EA, 0xB7A2, 0xB8C1, 0xB9FE, 0xBBF7, 0xBFA6, 0xC0AC, 0xC2E8,
+            0xC4C3, 0xC5B6, 0xC5BE, 0xC6DA, 0xC8BB, 0xC8F6, 0xCBFA, 0xCDDA, 0xCEF4, 0xD1B9, 0xD4D1, 0xD7FA
+    };
+
+    //没有以i、u、v开头的拼音
+    private static final char[] LETTERS = "abcdefghjklmnopqrstwxyz".toCharArray();
+
+    //常用汉字的首字母表，类加载时按编码区间算好，避免每次查询都做编码转换
+    private static final char[] CJK_INITIALS = new char[CJK_END - CJK_START + 1];
+
+    static {
+        for (char c = CJK_START; c <= CJK_END; c++) {
+            CJK_INITIALS[c - CJK_START] = initialOf(c);
+        }
+    }
+
+    /**
+     * 获取字符串的拼音首字母，字母和数字转为小写保留，无法识别的汉字和其他字符忽略
+     * @param text
+     * @return
+     */
+    public static String initials(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (Character.isLetterOrDigit(c)) {
+                    builder.append(Character.toLowerCase(c));
+                }
+                continue;
+            }
+            char initial = c >= CJK_START && c <= CJK_END ? CJK_INITIALS[c - CJK_START] : 0;
+            if (initial != 0) {
+                builder.append(initial);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static char initialOf(char c) {
+        byte[] bytes = String.valueOf(c).getBytes(GB2312);
+        if (bytes.length != 2) {
+            return 0;
+        }
+        int code = ((bytes[0] & 0xFF) << 8) | (bytes[1] & 0xFF);
+        if (code < BOUNDARIES[0] || code >= BOUNDARIES[BOUNDARIES.length - 1]) {
+            return 0;
+        }
+        for (int i = LETTERS.length - 1; i >= 0; i--) {
+            if (code >= BOUNDARIES[i]) {
+                return LETTERS[i];
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,85 @@
+package com.sky.utils;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * 子表行的差异：按业务键比较数据库中已有的行和提交的行，得到需要新增、修改、删除的行
+ */
+@Getter
+public class RowDiff<T> {
+
+    /**
+     * 需要新增的行
+     */
+    private final List<T> inserts = new ArrayList<>();
+
+    /**
+     * 需要修改的行，id已设置为数据库中对应行的id
+     */
+    private final List<T> updates = new ArrayList<>();
+
+    /**
+     * 需要删除的行的id
+     */
+    private final List<Long> deleteIds = new ArrayList<>();
+
+    /**
+     * @param stored   数据库中已有的行
+     * @param incoming 提交的行，忽略其中的id，按业务键与已有的行对应
+     * @param key      业务键
+     * @param same     业务键相同的两行其余字段是否也相同
+     * @param getId
+     * @param setId
+     */
+    public static <T, K> RowDiff<T> of(List<T> stored, List<T> incoming, Function<T, K> key, BiPredicate<T, T> same,
+                                       Function<T, Long> getId, BiConsumer<T, Long> setId) {
+        RowDiff<T> diff = new RowDiff<>();
+
+        //业务键重复时按出现顺序一一对应
+        Map<K, Deque<T>> storedByKey = new HashMap<>();
+        if (stored != null) {
+            for (T row : stored) {
+                storedByKey.computeIfAbsent(key.apply(row), k -> new ArrayDeque<>()).add(row);
+            }
+        }
+
+        if (incoming != null) {
+            for (T row : incoming) {
+                Deque<T> candidates = storedByKey.get(key.apply(row));
+                T old = candidates == null ? null : candidates.poll();
+                if (old == null) {
+                    setId.accept(row, null);
+                    diff.inserts.add(row);
+                } else if (!same.test(old, row)) {
+                    setId.accept(row, getId.apply(old));
+                    diff.updates.add(row);
+                }
+            }
+        }
+
+        storedByKey.values().forEach(rows -> rows.forEach(row -> diff.deleteIds.add(getId.apply(row))));
+        return diff;
+    }
+
+    /**
+     * 没有任何变化的差异，用于请求中未提交子表数据的情况
+     */
+    public static <T> RowDiff<T> unchanged() {
+        return new RowDiff<>();
+    }
+
+    public boolean isEmpty() {
+        return inserts.isEmpty() && updates.isEmpty() && deleteIds.isEmpty();
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.sky.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake风格的id生成器：41位毫秒时间戳 + 10位节点id + 12位序列号。
+ * 最近发出的id保存在一个AtomicLong里，生成时只做一次CAS，不加锁也不访问数据库或Redis。
+ * 同一毫秒内序列号用完时借用下一毫秒；系统时钟回拨时继续沿用已发出的最大时间戳递增，
+ * 因此同一节点发出的id始终严格递增，不会因时钟回拨重复
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 时间戳起点 2024-01-01 00:00:00 UTC，41位时间戳可以使用约69年
+     */
+    public static final long EPOCH = 1704067200000L;
+
+    public static final int NODE_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+
+    private static final int TIMESTAMP_SHIFT = NODE_ID_BITS + SEQUENCE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long NODE_MASK = MAX_NODE_ID << SEQUENCE_BITS;
+
+    //与id的布局相同：相对EPOCH的时间戳、节点id、该毫秒内的序列号，保存的是最近发出的id。
+    //节点id和时间戳在同一个值里，更换节点id时可以原子地同时推进时间戳
+    private final AtomicLong state;
+
+    /**
+     * @param nodeId 节点id，0到1023，集群内必须唯一
+     */
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, System.currentTimeMillis());
+    }
+
+    /**
+     * @param nodeId 节点id，0到1023，集群内必须唯一
+     * @param minTimestamp 起始时间戳（毫秒），生成的id中的时间戳不小于它。
+     *                     节点重启前可能已经借用了未来的时间戳，传入上次记录的时间戳可避免重启后重复
+     */
+    public SnowflakeIdGenerator(long nodeId, long minTimestamp) {
+        checkNodeId(nodeId);
+        long start = Math.max(minTimestamp, System.currentTimeMillis()) - EPOCH;
+        this.state = new AtomicLong(start << TIMESTAMP_SHIFT | nodeId << SEQUENCE_BITS);
+    }
+
+    /**
+     * 生成下一个id
+     * @return
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            long timestamp = current >>> TIMESTAMP_SHIFT;
+            long next;
+            if (now > timestamp) {
+                //时钟前进时从新的毫秒重新计数
+                next = now << TIMESTAMP_SHIFT | current & NODE_MASK;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                //同一毫秒或时钟回拨时序列号加一
+                next = current + 1;
+            } else {
+                //序列号用完时借用下一毫秒
+                next = (timestamp + 1) << TIMESTAMP_SHIFT | current & NODE_MASK;
+            }
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * 生成下一个十进制字符串形式的编号，按生成顺序递增
+     * @return
+     */
+    public String nextNumber() {
+        return Long.toString(nextId());
+    }
+
+    /**
+     * 已发出的最大时间戳（毫秒），可能因借用而大于当前时间
+     * @return
+     */
+    public long getLastTimestamp() {
+        return (state.get() >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    public long getNodeId() {
+        return (state.get() & NODE_MASK) >>> SEQUENCE_BITS;
+    }
+
+    /**
+     * 更换节点id，节点id的租约丢失后重新申请到新id时调用。
+     * 新id的上一个持有者可能已经用到minTimestamp，时间戳与节点id一起原子地推进到它之后，
+     * 更换之后生成的id不会与上一个持有者发出的重复
+     * @param nodeId
+     * @param minTimestamp 新节点id上一个持有者可能用过的最大时间戳（毫秒）
+     */
+    public void changeNodeId(long nodeId, long minTimestamp) {
+        checkNodeId(nodeId);
+        while (true) {
+            long current = state.get();
+            long timestamp = Math.max(current >>> TIMESTAMP_SHIFT, minTimestamp + 1 - EPOCH);
+            //序列号从0开始：时间戳大于minTimestamp，新节点id在这一毫秒还没有发过号
+            long next = timestamp << TIMESTAMP_SHIFT | nodeId << SEQUENCE_BITS;
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 从id中取出生成时的时间戳（毫秒）
+     * @param id
+     * @return
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    private static void checkNodeId(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点id必须在0到" + MAX_NODE_ID + "之间：" + nodeId);
+        }
+    }
+}
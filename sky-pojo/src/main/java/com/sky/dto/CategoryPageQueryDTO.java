@@ -19,4 +19,7 @@ public class CategoryPageQueryDTO implements Serializable {
     //分类类型 1菜品分类  2套餐分类
     private Integer type;
 
+    //游标分页时上一页返回的游标，为空表示查询第一页
+    private String cursor;
+
 }
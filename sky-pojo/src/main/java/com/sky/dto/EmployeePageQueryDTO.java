@@ -16,4 +16,7 @@ public class EmployeePageQueryDTO implements Serializable {
     //每页显示记录数
     private int pageSize;
 
+    //游标分页时上一页返回的游标，为空表示查询第一页
+    private String cursor;
+
 }
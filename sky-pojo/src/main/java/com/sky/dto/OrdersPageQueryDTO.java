@@ -27,4 +27,7 @@ public class OrdersPageQueryDTO implements Serializable {
 
     private Long userId;
 
+    //游标分页时上一页返回的游标，为空表示查询第一页
+    private String cursor;
+
 }
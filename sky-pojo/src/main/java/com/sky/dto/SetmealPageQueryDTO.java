@@ -3,6 +3,7 @@ package com.sky.dto;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.List;
 
 @Data
 public class SetmealPageQueryDTO implements Serializable {
@@ -19,4 +20,10 @@ public class SetmealPageQueryDTO implements Serializable {
     //状态 0表示禁用 1表示启用
     private Integer status;
 
+    //游标分页时上一页返回的游标，为空表示查询第一页
+    private String cursor;
+
+    //名称索引命中的id，由服务端根据name填充，不为null时代替name的like过滤
+    private List<Long> ids;
+
 }
@@ -0,0 +1,33 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultVO implements Serializable {
+
+    //读取的数据行数，不含表头和空行
+    private int total;
+
+    //导入成功的菜品数
+    private int dishCount;
+
+    //导入成功的套餐数
+    private int setmealCount;
+
+    //导入失败的行数
+    private int failed;
+
+    //失败原因，最多返回前100条
+    @Builder.Default
+    private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,38 @@
+package com.sky.vo;
+
+import com.sky.entity.Setmeal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuCategoryVO implements Serializable {
+
+    //分类id
+    private Long id;
+
+    //类型: 1菜品分类 2套餐分类
+    private Integer type;
+
+    //分类名称
+    private String name;
+
+    //顺序
+    private Integer sort;
+
+    //分类下起售中的菜品及口味
+    @Builder.Default
+    private List<DishVO> dishes = new ArrayList<>();
+
+    //分类下起售中的套餐
+    @Builder.Default
+    private List<Setmeal> setmeals = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuSnapshotVO implements Serializable {
+
+    //菜单版本号，管理端每次修改分类、菜品、套餐后递增
+    private Long version;
+
+    //快照生成时间
+    private LocalDateTime buildTime;
+
+    //启用的分类，按排序字段排列
+    private List<MenuCategoryVO> categories;
+}
@@ -0,0 +1,21 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchItemVO implements Serializable {
+
+    //菜品或套餐id
+    private Long id;
+
+    //名称
+    private String name;
+}
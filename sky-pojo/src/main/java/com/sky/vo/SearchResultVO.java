@@ -0,0 +1,22 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultVO implements Serializable {
+
+    //名称或拼音首字母匹配的菜品
+    private List<SearchItemVO> dishes;
+
+    //名称或拼音首字母匹配的套餐
+    private List<SearchItemVO> setmeals;
+}
@@ -0,0 +1,19 @@
+package com.sky.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 需要按请求令牌去重的service方法，同一令牌的重复请求返回首次处理的结果
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+
+    /**
+     * 令牌的使用范围，同一令牌在不同范围内各可使用一次
+     */
+    String value();
+}
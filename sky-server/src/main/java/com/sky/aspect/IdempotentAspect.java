@@ -0,0 +1,95 @@
+package com.sky.aspect;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.annotation.Idempotent;
+import com.sky.constant.MessageConstant;
+import com.sky.context.BaseContext;
+import com.sky.exception.RequestTokenException;
+import com.sky.idempotency.IdempotencyStore;
+import com.sky.properties.IdempotencyProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Type;
+
+/**
+ * 按请求令牌去重。
+ * 首个请求在Redis中原子地认领令牌后执行方法，结果以JSON保存；并发的重复请求轮询等待首个请求完成后返回同一结果，
+ * 已完成的重复请求直接返回缓存的结果，都不会再执行方法。首个请求失败时释放令牌，客户端可以用同一令牌重试
+ */
+@Aspect
+@Component
+@Slf4j
+public class IdempotentAspect {
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    @Autowired
+    private IdempotencyProperties properties;
+
+    @Around("execution(* com.sky.service.impl.*.*(..)) && @annotation(idempotent)")
+    public Object deduplicate(ProceedingJoinPoint joinPoint, Idempotent idempotent) throws Throwable {
+        String token = currentToken();
+        if (!StringUtils.hasText(token)) {
+            throw new RequestTokenException(MessageConstant.REQUEST_TOKEN_MISSING);
+        }
+        Long userId = BaseContext.getCurrentId();
+        String scope = idempotent.value();
+        Type resultType = ((MethodSignature) joinPoint.getSignature()).getMethod().getGenericReturnType();
+
+        long waitUntil = System.currentTimeMillis() + properties.getWaitMillis();
+        while (true) {
+            IdempotencyStore.Claim claim = idempotencyStore.claim(userId, token, scope);
+            switch (claim.getStatus()) {
+                case CLAIMED:
+                    return proceed(joinPoint, userId, token, scope, claim.getValue());
+                case DONE:
+                    log.info("用户{}的重复请求{}，返回首次处理的结果", userId, scope);
+                    return JSON.parseObject(claim.getValue(), resultType);
+                case INVALID:
+                    throw new RequestTokenException(MessageConstant.REQUEST_TOKEN_INVALID);
+                default:
+                    break;
+            }
+            if (System.currentTimeMillis() >= waitUntil) {
+                throw new RequestTokenException(MessageConstant.REQUEST_IN_PROGRESS);
+            }
+            Thread.sleep(properties.getPollMillis());
+        }
+    }
+
+    private Object proceed(ProceedingJoinPoint joinPoint, Long userId, String token, String scope, String owner)
+            throws Throwable {
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            idempotencyStore.release(userId, token, scope, owner);
+            throw e;
+        }
+        //方法已经成功，保存结果失败时不影响本次返回，重复请求在处理时限后会重新执行
+        try {
+            idempotencyStore.complete(userId, token, scope, result == null ? "null" : JSON.toJSONString(result));
+        } catch (RuntimeException e) {
+            log.warn("保存用户{}的{}请求结果失败：{}", userId, scope, e.getMessage());
+        }
+        return result;
+    }
+
+    private String currentToken() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return ((ServletRequestAttributes) attributes).getRequest().getHeader(properties.getTokenHeader());
+    }
+}
@@ -0,0 +1,52 @@
+package com.sky.aspect;
+
+import com.sky.datasource.DataSourceContextHolder;
+import com.sky.datasource.ReadWriteRoutingDataSource;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 只读方法路由到从库。
+ * 优先级高于事务切面（事务切面默认最低优先级），保证在事务获取连接之前选好数据源
+ */
+@Aspect
+@Component
+@Order(0)
+public class ReadOnlyDataSourceAspect {
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Pointcut("execution(* com.sky.service.impl.*.*(..)) && @annotation(com.sky.annotation.ReadOnly)")
+    public void readOnlyPointCut() {
+
+    }
+
+    @Around("readOnlyPointCut()")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        //嵌套调用沿用外层的选择；已经在事务中时连接已绑定，切换无效；本次请求写过主库时读主库
+        if (DataSourceContextHolder.getLookupKey() != null
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                || DataSourceContextHolder.isWritten()) {
+            return joinPoint.proceed();
+        }
+
+        String replica = routingDataSource.selectReplica();
+        if (replica == null) {
+            return joinPoint.proceed();
+        }
+        DataSourceContextHolder.setLookupKey(replica);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceContextHolder.clearLookupKey();
+        }
+    }
+
+}
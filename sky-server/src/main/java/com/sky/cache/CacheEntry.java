@@ -0,0 +1,25 @@
+package com.sky.cache;
+
+import lombok.Getter;
+
+/**
+ * 一级缓存条目，记录加载耗时和逻辑过期时间，用于判断是否提前刷新
+ */
+@Getter
+public class CacheEntry {
+
+    //缓存值（已转换为存储值，null以NullValue表示）
+    private final Object value;
+
+    //本次加载的耗时（毫秒）
+    private final long loadMillis;
+
+    //逻辑过期时间（毫秒时间戳），与一级缓存的过期时间一致
+    private final long expireAt;
+
+    public CacheEntry(Object value, long loadedAt, long loadMillis, long ttlMillis) {
+        this.value = value;
+        this.loadMillis = loadMillis;
+        this.expireAt = loadedAt + ttlMillis;
+    }
+}
@@ -0,0 +1,26 @@
+package com.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 跨节点缓存失效消息，通过Redis发布订阅广播给所有节点
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEvictMessage implements Serializable {
+
+    //发出消息的节点id，节点收到自己发出的消息时直接忽略
+    private String nodeId;
+
+    //缓存名称
+    private String cacheName;
+
+    //缓存key，为null时表示清空整个缓存
+    private String key;
+
+}
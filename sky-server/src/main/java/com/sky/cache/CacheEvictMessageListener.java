@@ -0,0 +1,38 @@
+package com.sky.cache;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 监听其他节点发出的缓存失效消息，只清理本节点的一级缓存
+ */
+@Slf4j
+public class CacheEvictMessageListener implements MessageListener {
+
+    private final TwoLevelCacheManager cacheManager;
+
+    public CacheEvictMessageListener(TwoLevelCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        CacheEvictMessage evictMessage;
+        try {
+            evictMessage = JSON.parseObject(body, CacheEvictMessage.class);
+        } catch (Exception e) {
+            log.warn("无法解析缓存失效消息：{}", body);
+            return;
+        }
+        if (evictMessage == null || cacheManager.getNodeId().equals(evictMessage.getNodeId())) {
+            return;
+        }
+        log.debug("收到缓存失效消息：{}", evictMessage);
+        cacheManager.evictLocal(evictMessage.getCacheName(), evictMessage.getKey());
+    }
+}
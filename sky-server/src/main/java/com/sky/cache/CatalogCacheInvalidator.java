@@ -0,0 +1,79 @@
+package com.sky.cache;
+
+import com.sky.constant.CacheConstant;
+import com.sky.service.MenuService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 商品目录缓存失效：菜品、套餐、分类的写操作统一从这里失效缓存。
+ * 只按受影响的分类精确清理对应的key，不扫描Redis键空间；
+ * 清理通过二级缓存广播到所有节点，并递增整份菜单快照的版本号。
+ * 在事务中调用时推迟到事务提交后执行，避免其他请求在提交前把旧数据重新加载进缓存。
+ */
+@Component
+@Slf4j
+public class CatalogCacheInvalidator {
+
+    /**
+     * 分类类型：1菜品分类 2套餐分类
+     */
+    private static final Integer[] CATEGORY_TYPES = {1, 2};
+
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MenuService menuService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 失效一次写操作影响到的商品目录缓存
+     * @param change
+     */
+    public void invalidate(CatalogChange change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(change);
+                }
+            });
+        } else {
+            doInvalidate(change);
+        }
+    }
+
+    private void doInvalidate(CatalogChange change) {
+        log.info("失效商品目录缓存：{}", change);
+        evict(CacheConstant.DISH_CACHE, change.getDishCategoryIds().toArray());
+        evict(CacheConstant.SETMEAL_CACHE, change.getSetmealCategoryIds().toArray());
+        evict(CacheConstant.SETMEAL_DISH_CACHE, change.getSetmealIds().toArray());
+        if (change.isCategoryChanged()) {
+            evict(CacheConstant.CATEGORY_CACHE, CacheConstant.ALL_CATEGORY_KEY);
+            evict(CacheConstant.CATEGORY_CACHE, (Object[]) CATEGORY_TYPES);
+        }
+        menuService.bumpVersion();
+        //通知缓存预热在后台重新加载受影响的分类
+        eventPublisher.publishEvent(change);
+    }
+
+    private void evict(String cacheName, Object... keys) {
+        if (keys.length == 0) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        for (Object key : keys) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.sky.cache;
+
+import com.sky.entity.Category;
+import com.sky.mapper.CategoryMapper;
+import com.sky.properties.TwoLevelCacheProperties;
+import com.sky.service.CatalogService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户端商品目录缓存预热。
+ * 启动时在就绪探针通过之前（ApplicationRunner执行完才会发布就绪事件）把所有启用分类的菜品、套餐缓存加载好；
+ * 管理端写操作提交后，在后台重新预热受影响的分类，避免编辑后第一个用户回源数据库。
+ */
+@Component
+@Slf4j
+public class CatalogCacheWarmer implements ApplicationRunner {
+
+    /**
+     * 分类类型：1菜品分类 2套餐分类
+     */
+    private static final int DISH_CATEGORY = 1;
+    private static final int SETMEAL_CATEGORY = 2;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private TwoLevelCacheProperties properties;
+
+    private ThreadPoolExecutor warmUpExecutor;
+
+    @PostConstruct
+    public void init() {
+        warmUpExecutor = new ThreadPoolExecutor(
+                properties.getWarmUpThreads(), properties.getWarmUpThreads(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(properties.getWarmUpQueueCapacity()),
+                new CustomizableThreadFactory("cache-warm-up-"), new ThreadPoolExecutor.AbortPolicy());
+        warmUpExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        warmUpExecutor.shutdownNow();
+    }
+
+    /**
+     * 启动预热，全部完成后才返回
+     * @param args
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isWarmUpEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Category> categories;
+        try {
+            categories = categoryMapper.list(null);
+        } catch (RuntimeException e) {
+            log.warn("查询分类失败，跳过缓存预热：{}", e.getMessage());
+            return;
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        futures.add(submit(this::warmCategoryList, true));
+        for (Category category : categories) {
+            futures.add(submit(() -> warmCategory(category.getId(), category.getType()), true));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        log.info("商品目录缓存预热完成，分类数：{}，总耗时：{}ms", categories.size(), elapsedMillis(start));
+    }
+
+    /**
+     * 管理端写操作提交后，在后台重新预热受影响的分类
+     * @param change
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChange change) {
+        for (Long categoryId : change.getDishCategoryIds()) {
+            submit(() -> warmCategory(categoryId, DISH_CATEGORY), false);
+        }
+        for (Long categoryId : change.getSetmealCategoryIds()) {
+            submit(() -> warmCategory(categoryId, SETMEAL_CATEGORY), false);
+        }
+        if (change.isCategoryChanged()) {
+            submit(this::warmCategoryList, false);
+        }
+    }
+
+    /**
+     * 提交预热任务。启动预热时线程池满则在当前线程执行，保证每个分类都被预热；
+     * 后台预热时线程池满则放弃，由用户请求按需加载
+     */
+    private CompletableFuture<Void> submit(Runnable task, boolean runInCallerIfRejected) {
+        try {
+            return CompletableFuture.runAsync(task, warmUpExecutor);
+        } catch (RejectedExecutionException e) {
+            if (runInCallerIfRejected) {
+                task.run();
+            } else {
+                log.warn("缓存预热任务队列已满，放弃本次预热");
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void warmCategory(Long categoryId, Integer type) {
+        long start = System.nanoTime();
+        try {
+            if (type != null && type == DISH_CATEGORY) {
+                catalogService.refreshDish(categoryId);
+            } else if (type != null && type == SETMEAL_CATEGORY) {
+                catalogService.refreshSetmeal(categoryId);
+            } else {
+                return;
+            }
+            log.info("预热分类缓存：categoryId={}，type={}，耗时：{}ms", categoryId, type, elapsedMillis(start));
+        } catch (RuntimeException e) {
+            log.warn("预热分类缓存失败：categoryId={}，type={}，{}", categoryId, type, e.getMessage());
+        }
+    }
+
+    private void warmCategoryList() {
+        long start = System.nanoTime();
+        try {
+            catalogService.refreshCategory(null);
+            catalogService.refreshCategory(DISH_CATEGORY);
+            catalogService.refreshCategory(SETMEAL_CATEGORY);
+            log.info("预热分类列表缓存，耗时：{}ms", elapsedMillis(start));
+        } catch (RuntimeException e) {
+            log.warn("预热分类列表缓存失败：{}", e.getMessage());
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,75 @@
+package com.sky.cache;
+
+import lombok.Data;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 一次管理端写操作影响到的商品目录范围
+ */
+@Data
+public class CatalogChange {
+
+    //菜品发生变化的分类id，包括菜品移动前后的分类
+    private Set<Long> dishCategoryIds = new HashSet<>();
+
+    //套餐发生变化的分类id，包括套餐移动前后的分类
+    private Set<Long> setmealCategoryIds = new HashSet<>();
+
+    //套餐菜品列表发生变化的套餐id
+    private Set<Long> setmealIds = new HashSet<>();
+
+    //分类本身是否发生变化
+    private boolean categoryChanged;
+
+    public static CatalogChange ofDishCategories(Collection<Long> categoryIds) {
+        CatalogChange change = new CatalogChange();
+        addNonNull(change.dishCategoryIds, categoryIds);
+        return change;
+    }
+
+    public static CatalogChange ofSetmealCategories(Collection<Long> categoryIds) {
+        CatalogChange change = new CatalogChange();
+        addNonNull(change.setmealCategoryIds, categoryIds);
+        return change;
+    }
+
+    public static CatalogChange ofCategory() {
+        CatalogChange change = new CatalogChange();
+        change.categoryChanged = true;
+        return change;
+    }
+
+    /**
+     * 追加套餐发生变化的分类
+     * @param categoryIds
+     * @return
+     */
+    public CatalogChange withSetmealCategories(Collection<Long> categoryIds) {
+        addNonNull(setmealCategoryIds, categoryIds);
+        return this;
+    }
+
+    /**
+     * 追加套餐菜品列表发生变化的套餐
+     * @param ids
+     * @return
+     */
+    public CatalogChange withSetmeals(Collection<Long> ids) {
+        addNonNull(setmealIds, ids);
+        return this;
+    }
+
+    private static void addNonNull(Set<Long> target, Collection<Long> ids) {
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            if (id != null) {
+                target.add(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 已序列化好的整份菜单快照，生成后不再修改
+ */
+@Getter
+@AllArgsConstructor
+public class MenuSnapshot {
+
+    //菜单版本号
+    private final long version;
+
+    //强校验ETag，格式为"版本号-分类列表序列化结果的MD5"，不含buildTime，同一版本在各节点相同
+    private final String etag;
+
+    //Result包装后的JSON响应体
+    private final byte[] body;
+
+}
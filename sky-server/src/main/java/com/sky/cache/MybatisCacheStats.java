@@ -0,0 +1,42 @@
+package com.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * MyBatis二级缓存命中统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MybatisCacheStats implements Serializable {
+
+    //mapper命名空间
+    private String namespace;
+
+    //当前条目数（估算值）
+    private long size;
+
+    //总请求次数
+    private long requestCount;
+
+    //命中次数
+    private long hitCount;
+
+    //未命中次数
+    private long missCount;
+
+    //命中率 = 命中 / 总请求
+    private double hitRatio;
+
+    //因容量或过期被淘汰的条目数
+    private long evictionCount;
+
+    //执行写语句或收到其他节点消息后整体清空的次数
+    private long flushCount;
+}
@@ -0,0 +1,158 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sky.constant.CacheConstant;
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.springframework.util.SerializationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 以有界Caffeine缓存实现的MyBatis二级缓存，在mapper xml中用&lt;cache type="..."/&gt;按命名空间开启。
+ * 命名空间内的insert、update、delete提交时MyBatis会调用clear，此时同时通知其他节点清空同一命名空间。
+ * 缓存实例由MyBatis创建，不是Spring Bean，因此通过静态方法与缓存管理器关联。
+ * 与MyBatis默认的读写缓存一样，值以序列化字节保存，每次命中都返回新的对象，调用方修改结果不会污染缓存
+ */
+public class MybatisCaffeineCache implements Cache, InitializingObject {
+
+    //本节点所有MyBatis二级缓存，按命名空间索引，用于处理其他节点的清空消息
+    private static final ConcurrentMap<String, MybatisCaffeineCache> CACHES = new ConcurrentHashMap<>();
+
+    //负责广播清空消息，Spring容器创建缓存管理器后绑定
+    private static volatile TwoLevelCacheManager cacheManager;
+
+    private final String id;
+
+    //最大条目数，可在<cache>的<property>中配置
+    private long maximumSize = 1000;
+
+    //写入后的过期时间（秒），兜底其他节点的清空消息丢失的情况
+    private long expireSeconds = 300;
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, byte[]> cache;
+
+    private final LongAdder flushes = new LongAdder();
+
+    public MybatisCaffeineCache(String id) {
+        this.id = id;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public void setExpireSeconds(long expireSeconds) {
+        this.expireSeconds = expireSeconds;
+    }
+
+    @Override
+    public void initialize() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CACHES.put(id, this);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        cache.put(key, SerializationUtils.serialize(value));
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        byte[] bytes = cache.getIfPresent(key);
+        return bytes == null ? null : SerializationUtils.deserialize(bytes);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        cache.invalidate(key);
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        clearLocal();
+        TwoLevelCacheManager manager = cacheManager;
+        if (manager != null) {
+            manager.publishEvict(CacheConstant.MYBATIS_CACHE_PREFIX + id, null);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return (int) cache.estimatedSize();
+    }
+
+    private void clearLocal() {
+        cache.invalidateAll();
+        flushes.increment();
+    }
+
+    private MybatisCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        return MybatisCacheStats.builder()
+                .namespace(id)
+                .size(cache.estimatedSize())
+                .requestCount(stats.requestCount())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRatio(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .flushCount(flushes.sum())
+                .build();
+    }
+
+    /**
+     * 绑定用于广播清空消息的缓存管理器
+     * @param manager
+     */
+    public static void bind(TwoLevelCacheManager manager) {
+        cacheManager = manager;
+    }
+
+    /**
+     * 收到其他节点的清空消息时只清空本节点的缓存
+     * @param namespace
+     */
+    static void clearLocal(String namespace) {
+        MybatisCaffeineCache cache = CACHES.get(namespace);
+        if (cache != null) {
+            cache.clearLocal();
+        }
+    }
+
+    /**
+     * 本节点所有MyBatis二级缓存的命中统计
+     * @return
+     */
+    public static List<MybatisCacheStats> getAllStats() {
+        List<MybatisCacheStats> stats = new ArrayList<>();
+        CACHES.values().forEach(cache -> stats.add(cache.getStats()));
+        return stats;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Cache && id.equals(((Cache) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+}
@@ -0,0 +1,164 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.pagehelper.ISelect;
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.mapper.TableStatMapper;
+import com.sky.properties.PageTotalProperties;
+import com.sky.result.PageResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分页查询总记录数缓存。
+ * PageHelper每次分页都会额外执行一次COUNT(*)，这里按表和查询条件缓存总数，分页本身只查当前页。
+ * 每张表在Redis中维护一个代数，写入后递增，缓存key带上代数，所有节点的旧总数随之失效。
+ */
+@Component
+@Slf4j
+public class PageTotalCache {
+
+    public static final String DISH = "dish";
+    public static final String SETMEAL = "setmeal";
+    public static final String CATEGORY = "category";
+    public static final String EMPLOYEE = "employee";
+
+    private static final String GENERATION_KEY_PREFIX = "PAGE_TOTAL_GENERATION:";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private TableStatMapper tableStatMapper;
+    @Autowired
+    private PageTotalProperties properties;
+
+    private Cache<String, PageResult> totals;
+
+    @PostConstruct
+    public void init() {
+        totals = Caffeine.newBuilder()
+                .maximumSize(properties.getTotalCacheMaximumSize())
+                .expireAfterWrite(properties.getTotalCacheSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 分页查询，总记录数优先取缓存
+     * @param table 查询的主表，用于写入后失效
+     * @param filters 查询条件，作为缓存key的一部分
+     * @param page 页码
+     * @param pageSize 每页记录数
+     * @param select 分页查询
+     * @return
+     */
+    public PageResult query(String table, List<Object> filters, int page, int pageSize, ISelect select) {
+        PageResult total = getTotal(table, filters, select);
+
+        List records;
+        if (total.getTotal() <= (long) (page - 1) * pageSize && !total.isEstimated()) {
+            //超出总数的页不需要再查
+            records = new ArrayList<>();
+        } else {
+            Page<Object> result = PageHelper.startPage(page, pageSize, false).doSelectPage(select);
+            records = result.getResult();
+        }
+        return new PageResult(total.getTotal(), records, total.isEstimated());
+    }
+
+    /**
+     * 表数据变化后失效该表的分页总数，事务中调用时在提交后执行
+     * @param table
+     */
+    public void invalidate(String table) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpGeneration(table);
+                }
+            });
+        } else {
+            bumpGeneration(table);
+        }
+    }
+
+    /**
+     * 商品目录变化事件在事务提交后发布，直接失效对应表的分页总数
+     * @param change
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChange change) {
+        if (!change.getDishCategoryIds().isEmpty()) {
+            bumpGeneration(DISH);
+        }
+        if (!change.getSetmealCategoryIds().isEmpty() || !change.getSetmealIds().isEmpty()) {
+            bumpGeneration(SETMEAL);
+        }
+        if (change.isCategoryChanged()) {
+            bumpGeneration(CATEGORY);
+        }
+    }
+
+    private PageResult getTotal(String table, List<Object> filters, ISelect select) {
+        String generation = getGeneration(table);
+        if (generation == null || properties.getTotalCacheSeconds() <= 0) {
+            return countTotal(table, filters, select);
+        }
+        String key = table + ":" + generation + ":" + filters;
+        return totals.get(key, k -> countTotal(table, filters, select));
+    }
+
+    private PageResult countTotal(String table, List<Object> filters, ISelect select) {
+        if (properties.isEstimateUnfilteredTotal() && isUnfiltered(filters)) {
+            Long estimated = tableStatMapper.getEstimatedRows(table);
+            if (estimated != null) {
+                return new PageResult(estimated, null, true);
+            }
+        }
+        return new PageResult(PageHelper.count(select), null);
+    }
+
+    /**
+     * 读取表的当前代数，Redis不可用时返回null，此时不使用缓存
+     */
+    private String getGeneration(String table) {
+        try {
+            String generation = stringRedisTemplate.opsForValue().get(GENERATION_KEY_PREFIX + table);
+            return generation == null ? "0" : generation;
+        } catch (RuntimeException e) {
+            log.warn("读取分页总数代数失败，直接查询总数：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void bumpGeneration(String table) {
+        try {
+            stringRedisTemplate.opsForValue().increment(GENERATION_KEY_PREFIX + table);
+        } catch (RuntimeException e) {
+            //代数没能递增时清空本地缓存，其他节点的旧总数最多保留缓存时间
+            totals.invalidateAll();
+            log.warn("递增分页总数代数失败：{}，{}", table, e.getMessage());
+        }
+    }
+
+    private static boolean isUnfiltered(List<Object> filters) {
+        for (Object filter : filters) {
+            if (filter != null && !"".equals(filter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
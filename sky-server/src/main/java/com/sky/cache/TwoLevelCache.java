@@ -0,0 +1,383 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 二级缓存：一级为进程内Caffeine缓存，二级为Redis缓存。
+ * Redis不可用时，读取退化为只走一级缓存，写入和清理Redis失败只记录日志。
+ * 以sync方式使用时（@Cacheable(sync = true)），同一个key在本节点同时只有一个线程回源加载，
+ * 其余线程等待该次加载的结果；热点key在一级缓存过期前按概率提前异步刷新，读请求继续拿到旧值。
+ * 每个key（按哈希分段）有一个版本号，清理时递增；加载期间版本号变化说明数据已被修改，
+ * 加载到的可能是修改前的数据，只返回给本次调用方，不写入缓存。
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+
+    private final Cache<Object, CacheEntry> l1;
+
+    private final org.springframework.cache.Cache l2;
+
+    private final TwoLevelCacheManager cacheManager;
+
+    //一级缓存写入后的过期时间（毫秒）
+    private final long l1ExpireMillis;
+
+    //提前刷新的激进程度，越大越早刷新，0表示关闭提前刷新
+    private final double refreshAheadBeta;
+
+    //执行提前刷新的线程池
+    private final Executor refreshExecutor;
+
+    //正在加载中的key，用于合并同一个key的并发加载
+    private final ConcurrentMap<String, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+
+    //按key哈希分段的版本号，内存占用固定；不同key落在同一段时只会多放弃几次写入
+    private static final int GENERATION_STRIPES = 1024;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder l2Errors = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    public TwoLevelCache(String name, Cache<Object, CacheEntry> l1, org.springframework.cache.Cache l2,
+                         TwoLevelCacheManager cacheManager, long l1ExpireMillis, double refreshAheadBeta,
+                         Executor refreshExecutor) {
+        super(true);
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.cacheManager = cacheManager;
+        this.l1ExpireMillis = l1ExpireMillis;
+        this.refreshAheadBeta = refreshAheadBeta;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l1;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String l1Key = l1Key(key);
+        CacheEntry entry = l1.getIfPresent(l1Key);
+        if (entry != null) {
+            l1Hits.increment();
+            return entry.getValue();
+        }
+        long generation = generation(l1Key);
+        entry = loadFromL2(key, System.nanoTime());
+        if (entry == null) {
+            return null;
+        }
+        putL1IfCurrent(l1Key, entry, generation);
+        return entry.getValue();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String l1Key = l1Key(key);
+        CacheEntry entry = l1.getIfPresent(l1Key);
+        if (entry != null) {
+            l1Hits.increment();
+            if (shouldRefreshEarly(entry)) {
+                refreshAsync(key, l1Key, valueLoader);
+            }
+            return (T) fromStoreValue(entry.getValue());
+        }
+        entry = loadSingleFlight(key, l1Key, valueLoader, false);
+        return (T) fromStoreValue(entry.getValue());
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        putEntry(key, new CacheEntry(toStoreValue(value), System.currentTimeMillis(), 0, l1ExpireMillis));
+    }
+
+    /**
+     * 直接调用加载方法并写回两级缓存，用于缓存预热。
+     * 与按需加载一样在加载前记下版本号，加载期间key被清理时不写入，预热不会把修改前的数据写回缓存
+     * @param key
+     * @param valueLoader
+     * @return 加载到的值
+     */
+    public Object refresh(Object key, Callable<?> valueLoader) {
+        return fromStoreValue(loadSingleFlight(key, l1Key(key), valueLoader, true).getValue());
+    }
+
+    @Override
+    public void evict(Object key) {
+        invalidateLoads(l1Key(key));
+        l1.invalidate(l1Key(key));
+        evictL2(key);
+        cacheManager.publishEvict(name, l1Key(key));
+    }
+
+    @Override
+    public void clear() {
+        invalidateAllLoads();
+        l1.invalidateAll();
+        try {
+            l2.clear();
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            log.warn("清空Redis缓存失败：{}，{}", name, e.getMessage());
+        }
+        cacheManager.publishEvict(name, null);
+    }
+
+    /**
+     * 只清理本节点的一级缓存，用于响应其他节点的失效消息
+     * @param key 为null时清空整个一级缓存
+     */
+    public void evictLocal(String key) {
+        if (key == null) {
+            invalidateAllLoads();
+            l1.invalidateAll();
+        } else {
+            invalidateLoads(key);
+            l1.invalidate(key);
+        }
+    }
+
+    /**
+     * 统计一级、二级缓存的命中情况以及回源加载的合并情况
+     * @return
+     */
+    public TwoLevelCacheStats getStats() {
+        long l1HitCount = l1Hits.sum();
+        long l2HitCount = l2Hits.sum();
+        long missCount = misses.sum();
+        long requestCount = l1HitCount + l2HitCount + missCount;
+        long l2RequestCount = l2HitCount + missCount;
+        return TwoLevelCacheStats.builder()
+                .cacheName(name)
+                .l1Size(l1.estimatedSize())
+                .requestCount(requestCount)
+                .l1HitCount(l1HitCount)
+                .l2HitCount(l2HitCount)
+                .missCount(missCount)
+                .l2ErrorCount(l2Errors.sum())
+                .l1HitRatio(ratio(l1HitCount, requestCount))
+                .l2HitRatio(ratio(l2HitCount, l2RequestCount))
+                .loadCount(loads.sum())
+                .coalescedLoadCount(coalescedLoads.sum())
+                .earlyRefreshCount(earlyRefreshes.sum())
+                .build();
+    }
+
+    /**
+     * 同一个key同时只允许一个线程执行加载，其余线程等待并共享结果
+     * @param skipL2 提前刷新时为true，直接调用加载方法，不读取Redis中的旧值
+     */
+    private CacheEntry loadSingleFlight(Object key, String l1Key, Callable<?> valueLoader, boolean skipL2) {
+        CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> existing = inFlight.putIfAbsent(l1Key, future);
+        if (existing != null) {
+            coalescedLoads.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            CacheEntry entry = load(key, l1Key, valueLoader, skipL2);
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(l1Key, future);
+        }
+    }
+
+    /**
+     * 先查Redis，Redis未命中再调用加载方法，并把结果写回两级缓存
+     */
+    private CacheEntry load(Object key, String l1Key, Callable<?> valueLoader, boolean skipL2) {
+        long generation = generation(l1Key);
+        long start = System.nanoTime();
+        CacheEntry entry;
+        if (!skipL2) {
+            entry = loadFromL2(key, start);
+            if (entry != null) {
+                putL1IfCurrent(l1Key, entry, generation);
+                return entry;
+            }
+        }
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        loads.increment();
+        entry = new CacheEntry(toStoreValue(value), System.currentTimeMillis(), elapsedMillis(start), l1ExpireMillis);
+        putEntryIfCurrent(key, l1Key, entry, generation);
+        return entry;
+    }
+
+    /**
+     * 提前刷新：已有线程在加载时直接跳过，线程池满时放弃本次刷新。
+     * 刷新直接调用加载方法并写回两级缓存，Redis中的值与一级缓存同时更新
+     */
+    private void refreshAsync(Object key, String l1Key, Callable<?> valueLoader) {
+        if (inFlight.containsKey(l1Key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loadSingleFlight(key, l1Key, valueLoader, true);
+                    earlyRefreshes.increment();
+                } catch (RuntimeException e) {
+                    log.warn("提前刷新缓存失败：{}::{}，{}", name, key, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("刷新线程池已满，跳过提前刷新：{}::{}", name, key);
+        }
+    }
+
+    /**
+     * 概率提前过期（XFetch）：加载越慢、越接近过期，越可能提前刷新，
+     * 热点key通常由某一个请求在过期前触发刷新，避免过期瞬间大量请求同时回源
+     */
+    private boolean shouldRefreshEarly(CacheEntry entry) {
+        if (refreshAheadBeta <= 0 || entry.getLoadMillis() <= 0) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        double gap = -entry.getLoadMillis() * refreshAheadBeta * Math.log(random);
+        return System.currentTimeMillis() + gap >= entry.getExpireAt();
+    }
+
+    private CacheEntry loadFromL2(Object key, long start) {
+        ValueWrapper wrapper = getFromL2(key);
+        if (wrapper == null) {
+            misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        return new CacheEntry(toStoreValue(wrapper.get()), System.currentTimeMillis(),
+                elapsedMillis(start), l1ExpireMillis);
+    }
+
+    private void putL1IfCurrent(String l1Key, CacheEntry entry, long generation) {
+        if (generation(l1Key) != generation) {
+            return;
+        }
+        l1.put(l1Key, entry);
+        //检查与写入之间发生了清理时撤回写入
+        if (generation(l1Key) != generation) {
+            l1.invalidate(l1Key);
+        }
+    }
+
+    private void putEntryIfCurrent(Object key, String l1Key, CacheEntry entry, long generation) {
+        if (generation(l1Key) != generation) {
+            log.debug("加载期间缓存已被清理，不写入：{}::{}", name, key);
+            return;
+        }
+        putEntry(key, entry);
+        if (generation(l1Key) != generation) {
+            l1.invalidate(l1Key);
+            evictL2(key);
+        }
+    }
+
+    private void putEntry(Object key, CacheEntry entry) {
+        l1.put(l1Key(key), entry);
+        try {
+            l2.put(key, fromStoreValue(entry.getValue()));
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            log.warn("写入Redis缓存失败，仅保留本地缓存：{}::{}，{}", name, key, e.getMessage());
+        }
+    }
+
+    private void evictL2(Object key) {
+        try {
+            l2.evict(key);
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            log.warn("清理Redis缓存失败：{}::{}，{}", name, key, e.getMessage());
+        }
+    }
+
+    /**
+     * 递增key的版本号，并丢弃正在进行的加载，之后的请求重新加载
+     */
+    private void invalidateLoads(String l1Key) {
+        generations.incrementAndGet(stripe(l1Key));
+        inFlight.remove(l1Key);
+    }
+
+    private void invalidateAllLoads() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        inFlight.clear();
+    }
+
+    private long generation(String l1Key) {
+        return generations.get(stripe(l1Key));
+    }
+
+    private static int stripe(String l1Key) {
+        int hash = l1Key.hashCode();
+        return (hash ^ hash >>> 16) & (GENERATION_STRIPES - 1);
+    }
+
+    private ValueWrapper getFromL2(Object key) {
+        try {
+            return l2.get(key);
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            log.warn("读取Redis缓存失败，按未命中处理：{}::{}，{}", name, key, e.getMessage());
+            return null;
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private static double ratio(long hits, long total) {
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 一级缓存统一使用字符串key，与Redis中的key以及失效消息中的key保持一致
+     */
+    private static String l1Key(Object key) {
+        return String.valueOf(key);
+    }
+}
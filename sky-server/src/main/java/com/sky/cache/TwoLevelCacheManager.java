@@ -0,0 +1,119 @@
+package com.sky.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.constant.CacheConstant;
+import com.sky.properties.TwoLevelCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存管理器：在Redis缓存管理器前面为每个缓存加一层有界的Caffeine本地缓存，
+ * 缓存清理时通过Redis发布订阅通知其他节点清理各自的本地缓存
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager redisCacheManager;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final TwoLevelCacheProperties properties;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    //提前刷新使用的有界线程池，队列满时直接放弃刷新
+    private final ThreadPoolExecutor refreshExecutor;
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager, StringRedisTemplate stringRedisTemplate,
+                                TwoLevelCacheProperties properties) {
+        this.redisCacheManager = redisCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.refreshExecutor = new ThreadPoolExecutor(
+                properties.getRefreshThreads(), properties.getRefreshThreads(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(properties.getRefreshQueueCapacity()),
+                new CustomizableThreadFactory("cache-refresh-"), new ThreadPoolExecutor.AbortPolicy());
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 所有二级缓存的命中统计
+     * @return
+     */
+    public List<TwoLevelCacheStats> getStats() {
+        List<TwoLevelCacheStats> stats = new ArrayList<>();
+        caches.values().forEach(cache -> stats.add(cache.getStats()));
+        return stats;
+    }
+
+    /**
+     * 广播缓存失效消息
+     * @param cacheName
+     * @param key 为null时表示清空整个缓存
+     */
+    void publishEvict(String cacheName, String key) {
+        CacheEvictMessage message = new CacheEvictMessage(nodeId, cacheName, key);
+        try {
+            stringRedisTemplate.convertAndSend(properties.getEvictChannel(), JSON.toJSONString(message));
+        } catch (RuntimeException e) {
+            log.warn("发布缓存失效消息失败：{}，{}", message, e.getMessage());
+        }
+    }
+
+    /**
+     * 只清理本节点的一级缓存，MyBatis二级缓存的消息则清空对应命名空间
+     * @param cacheName
+     * @param key
+     */
+    void evictLocal(String cacheName, String key) {
+        if (cacheName != null && cacheName.startsWith(CacheConstant.MYBATIS_CACHE_PREFIX)) {
+            MybatisCaffeineCache.clearLocal(cacheName.substring(CacheConstant.MYBATIS_CACHE_PREFIX.length()));
+            return;
+        }
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<Object, CacheEntry> l1 = Caffeine.newBuilder()
+                .maximumSize(properties.getL1MaximumSize())
+                .expireAfterWrite(properties.getL1ExpireSeconds(), TimeUnit.SECONDS)
+                .build();
+        return new TwoLevelCache(name, l1, redisCacheManager.getCache(name), this,
+                TimeUnit.SECONDS.toMillis(properties.getL1ExpireSeconds()), properties.getRefreshAheadBeta(),
+                refreshExecutor);
+    }
+}
@@ -0,0 +1,54 @@
+package com.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 二级缓存命中统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TwoLevelCacheStats implements Serializable {
+
+    //缓存名称
+    private String cacheName;
+
+    //一级缓存当前条目数（估算值）
+    private long l1Size;
+
+    //总请求次数
+    private long requestCount;
+
+    //一级缓存命中次数
+    private long l1HitCount;
+
+    //二级缓存命中次数
+    private long l2HitCount;
+
+    //两级都未命中的次数
+    private long missCount;
+
+    //访问Redis失败的次数
+    private long l2ErrorCount;
+
+    //一级缓存命中率 = 一级命中 / 总请求
+    private double l1HitRatio;
+
+    //二级缓存命中率 = 二级命中 / 一级未命中的请求
+    private double l2HitRatio;
+
+    //实际回源加载的次数
+    private long loadCount;
+
+    //并发请求合并到同一次加载的次数
+    private long coalescedLoadCount;
+
+    //过期前提前刷新的次数
+    private long earlyRefreshCount;
+}
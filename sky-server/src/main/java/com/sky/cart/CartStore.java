@@ -0,0 +1,300 @@
+package com.sky.cart;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.ShoppingCartProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 以Redis hash保存的购物车，每个用户一个hash。
+ * 商品字段（d:菜品id:口味 或 s:套餐id）的值为数量，用HINCRBY原子增减；
+ * 同名加"#info"后缀的字段保存名称、单价、图片等展示信息；MARKER字段表示购物车已从数据库加载，空购物车也保留它。
+ * 每次修改都会把用户id放入待写回集合，由CartWriteBehind定时写回shopping_cart表。
+ * 所有脚本在购物车不在Redis中时返回-1（或空），调用方从数据库加载后重试一次
+ */
+@Component
+public class CartStore {
+
+    private static final String MARKER = "_loaded";
+
+    private static final String INFO_SUFFIX = "#info";
+
+    //KEYS: 购物车, 待写回集合  ARGV: 商品字段, 展示信息, 用户id, 过期秒数
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return -1 end " +
+                    "local n = redis.call('hincrby', KEYS[1], ARGV[1], 1) " +
+                    "if n == 1 then redis.call('hset', KEYS[1], ARGV[1] .. '#info', ARGV[2]) end " +
+                    "redis.call('expire', KEYS[1], ARGV[4]) " +
+                    "redis.call('sadd', KEYS[2], ARGV[3]) " +
+                    "return n", Long.class);
+
+    //KEYS: 购物车, 待写回集合  ARGV: 商品字段, 用户id, 过期秒数
+    private static final RedisScript<Long> SUB_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return -1 end " +
+                    "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+                    "local n = redis.call('hincrby', KEYS[1], ARGV[1], -1) " +
+                    "if n <= 0 then redis.call('hdel', KEYS[1], ARGV[1], ARGV[1] .. '#info') n = 0 end " +
+                    "redis.call('expire', KEYS[1], ARGV[3]) " +
+                    "redis.call('sadd', KEYS[2], ARGV[2]) " +
+                    "return n", Long.class);
+
+    //取出全部内容并清空，只保留已加载标记。KEYS: 购物车, 待写回集合  ARGV: 用户id, 过期秒数
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return {'-1'} end " +
+                    "local all = redis.call('hgetall', KEYS[1]) " +
+                    "redis.call('del', KEYS[1]) " +
+                    "redis.call('hset', KEYS[1], '" + MARKER + "', '1') " +
+                    "redis.call('expire', KEYS[1], ARGV[2]) " +
+                    "redis.call('sadd', KEYS[2], ARGV[1]) " +
+                    "return all", List.class);
+
+    //把数量加回购物车。KEYS: 购物车, 待写回集合  ARGV: 用户id, 过期秒数, 之后依次为 商品字段, 数量, 展示信息
+    private static final RedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('hsetnx', KEYS[1], '" + MARKER + "', '1') " +
+                    "for i = 3, #ARGV, 3 do " +
+                    "redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+                    "redis.call('hsetnx', KEYS[1], ARGV[i] .. '#info', ARGV[i + 2]) " +
+                    "end " +
+                    "redis.call('expire', KEYS[1], ARGV[2]) " +
+                    "redis.call('sadd', KEYS[2], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    //购物车不在Redis中时写入从数据库读到的内容，已存在时不覆盖。KEYS: 购物车  ARGV: 过期秒数, 之后依次为 字段, 值
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end " +
+                    "redis.call('hset', KEYS[1], '" + MARKER + "', '1') " +
+                    "for i = 2, #ARGV, 2 do redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+                    "redis.call('expire', KEYS[1], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    //KEYS: 购物车, 待写回集合  ARGV: 用户id, 过期秒数
+    private static final RedisScript<Long> CLEAN_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('del', KEYS[1]) " +
+                    "redis.call('hset', KEYS[1], '" + MARKER + "', '1') " +
+                    "redis.call('expire', KEYS[1], ARGV[2]) " +
+                    "redis.call('sadd', KEYS[2], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+    @Autowired
+    private ShoppingCartProperties properties;
+
+    /**
+     * 购物车中的商品字段名
+     * @param dishId
+     * @param setmealId
+     * @param dishFlavor
+     * @return
+     */
+    public static String field(Long dishId, Long setmealId, String dishFlavor) {
+        if (dishId != null) {
+            return "d:" + dishId + ":" + (dishFlavor == null ? "" : dishFlavor);
+        }
+        return "s:" + setmealId;
+    }
+
+    /**
+     * 查询用户的购物车，一次HGETALL
+     * @param userId
+     * @return
+     */
+    public List<ShoppingCart> list(Long userId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key(userId));
+        if (entries.isEmpty()) {
+            load(userId);
+            entries = stringRedisTemplate.opsForHash().entries(key(userId));
+        }
+        return toItems(userId, entries);
+    }
+
+    /**
+     * 商品数量加一，第一次加入时保存展示信息
+     * @param userId
+     * @param item 名称、单价、图片、菜品或套餐id、口味
+     * @return 加入后的数量
+     */
+    public long add(Long userId, ShoppingCart item) {
+        String field = field(item.getDishId(), item.getSetmealId(), item.getDishFlavor());
+        String info = JSON.toJSONString(info(item));
+        List<String> keys = Arrays.asList(key(userId), properties.getDirtyKey());
+        Long count = stringRedisTemplate.execute(ADD_SCRIPT, keys, field, info, userId.toString(), expireSeconds());
+        if (count != null && count < 0) {
+            load(userId);
+            count = stringRedisTemplate.execute(ADD_SCRIPT, keys, field, info, userId.toString(), expireSeconds());
+        }
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 商品数量减一，减到0时移除该商品
+     * @param userId
+     * @param field
+     * @return 减少后的数量
+     */
+    public long sub(Long userId, String field) {
+        List<String> keys = Arrays.asList(key(userId), properties.getDirtyKey());
+        Long count = stringRedisTemplate.execute(SUB_SCRIPT, keys, field, userId.toString(), expireSeconds());
+        if (count != null && count < 0) {
+            load(userId);
+            count = stringRedisTemplate.execute(SUB_SCRIPT, keys, field, userId.toString(), expireSeconds());
+        }
+        return count == null ? 0 : Math.max(count, 0);
+    }
+
+    /**
+     * 清空购物车
+     * @param userId
+     */
+    public void clean(Long userId) {
+        stringRedisTemplate.execute(CLEAN_SCRIPT, Arrays.asList(key(userId), properties.getDirtyKey()),
+                userId.toString(), expireSeconds());
+    }
+
+    /**
+     * 原子地取出并清空购物车，用于下单。同一购物车的并发下单只有一个能拿到商品
+     * @param userId
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public List<ShoppingCart> claim(Long userId) {
+        List<String> keys = Arrays.asList(key(userId), properties.getDirtyKey());
+        List<String> flat = stringRedisTemplate.execute(CLAIM_SCRIPT, keys, userId.toString(), expireSeconds());
+        if (flat != null && flat.size() == 1) {
+            load(userId);
+            flat = stringRedisTemplate.execute(CLAIM_SCRIPT, keys, userId.toString(), expireSeconds());
+        }
+        if (flat == null || flat.size() < 2) {
+            return Collections.emptyList();
+        }
+        Map<Object, Object> entries = new HashMap<>(flat.size());
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            entries.put(flat.get(i), flat.get(i + 1));
+        }
+        return toItems(userId, entries);
+    }
+
+    /**
+     * 下单失败时把取出的商品加回购物车，期间新加入的商品保留
+     * @param userId
+     * @param items
+     */
+    public void restore(Long userId, List<ShoppingCart> items) {
+        List<String> args = new ArrayList<>(2 + items.size() * 3);
+        args.add(userId.toString());
+        args.add(expireSeconds());
+        for (ShoppingCart item : items) {
+            args.add(field(item.getDishId(), item.getSetmealId(), item.getDishFlavor()));
+            args.add(item.getNumber().toString());
+            args.add(JSON.toJSONString(info(item)));
+        }
+        stringRedisTemplate.execute(RESTORE_SCRIPT, Arrays.asList(key(userId), properties.getDirtyKey()),
+                args.toArray());
+    }
+
+    /**
+     * 读取购物车当前内容用于写回数据库，不在Redis中时返回null（已过期的购物车此前已经写回）
+     * @param userId
+     * @return
+     */
+    List<ShoppingCart> snapshot(Long userId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key(userId));
+        return entries.isEmpty() ? null : toItems(userId, entries);
+    }
+
+    /**
+     * 取出一批待写回的用户id
+     * @param count
+     * @return
+     */
+    List<Long> popDirty(int count) {
+        List<String> userIds = stringRedisTemplate.opsForSet().pop(properties.getDirtyKey(), count);
+        if (userIds == null) {
+            return Collections.emptyList();
+        }
+        return userIds.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * 写回失败时重新标记，等待下次写回
+     * @param userIds
+     */
+    void markDirty(List<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            stringRedisTemplate.opsForSet().add(properties.getDirtyKey(),
+                    userIds.stream().map(String::valueOf).toArray(String[]::new));
+        }
+    }
+
+    private void load(Long userId) {
+        List<ShoppingCart> stored = shoppingCartMapper.listByUserId(userId);
+        List<String> args = new ArrayList<>(1 + stored.size() * 4);
+        args.add(expireSeconds());
+        for (ShoppingCart item : stored) {
+            String field = field(item.getDishId(), item.getSetmealId(), item.getDishFlavor());
+            args.add(field);
+            args.add(item.getNumber().toString());
+            args.add(field + INFO_SUFFIX);
+            args.add(JSON.toJSONString(info(item)));
+        }
+        stringRedisTemplate.execute(LOAD_SCRIPT, Collections.singletonList(key(userId)), args.toArray());
+    }
+
+    private List<ShoppingCart> toItems(Long userId, Map<Object, Object> entries) {
+        List<ShoppingCart> items = new ArrayList<>(entries.size() / 2);
+        entries.forEach((field, value) -> {
+            String name = (String) field;
+            if (MARKER.equals(name) || name.endsWith(INFO_SUFFIX)) {
+                return;
+            }
+            Object info = entries.get(name + INFO_SUFFIX);
+            if (info == null) {
+                return;
+            }
+            ShoppingCart item = JSON.parseObject((String) info, ShoppingCart.class);
+            item.setUserId(userId);
+            item.setNumber(Integer.valueOf((String) value));
+            items.add(item);
+        });
+        return items;
+    }
+
+    /**
+     * 展示信息只保存与数量、用户无关的字段
+     */
+    private static ShoppingCart info(ShoppingCart item) {
+        return ShoppingCart.builder()
+                .name(item.getName())
+                .image(item.getImage())
+                .amount(item.getAmount())
+                .dishId(item.getDishId())
+                .setmealId(item.getSetmealId())
+                .dishFlavor(item.getDishFlavor())
+                .createTime(item.getCreateTime())
+                .build();
+    }
+
+    private String key(Long userId) {
+        return properties.getKeyPrefix() + userId;
+    }
+
+    private String expireSeconds() {
+        return String.valueOf(properties.getExpireSeconds());
+    }
+}
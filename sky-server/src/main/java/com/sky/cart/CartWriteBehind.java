@@ -0,0 +1,95 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.ShoppingCartProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 购物车写回。
+ * 定时从待写回集合中取出一批用户（SPOP，多个节点不会取到同一个用户），
+ * 读取其Redis购物车的当前内容，整体替换shopping_cart表中该用户的行。
+ * 取出之后发生的修改会重新标记，写回失败的用户放回集合等待下次写回
+ */
+@Component
+@Slf4j
+public class CartWriteBehind {
+
+    @Autowired
+    private CartStore cartStore;
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ShoppingCartProperties properties;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("cart-write-behind-"));
+        executor.scheduleWithFixedDelay(this::flush, properties.getFlushIntervalMillis(),
+                properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush() {
+        try {
+            List<Long> userIds;
+            do {
+                userIds = cartStore.popDirty(properties.getFlushBatchSize());
+                List<Long> failed = new ArrayList<>();
+                for (Long userId : userIds) {
+                    try {
+                        persist(userId);
+                    } catch (RuntimeException e) {
+                        log.warn("写回用户{}的购物车失败：{}", userId, e.getMessage());
+                        failed.add(userId);
+                    }
+                }
+                cartStore.markDirty(failed);
+                //本批有失败时等下一轮再试，避免数据库故障期间空转
+                if (!failed.isEmpty()) {
+                    return;
+                }
+            } while (userIds.size() == properties.getFlushBatchSize());
+        } catch (RuntimeException e) {
+            log.warn("购物车写回失败：{}", e.getMessage());
+        }
+    }
+
+    private void persist(Long userId) {
+        List<ShoppingCart> items = cartStore.snapshot(userId);
+        if (items == null) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            shoppingCartMapper.deleteByUserId(userId);
+            if (!items.isEmpty()) {
+                shoppingCartMapper.insertBatch(items);
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package com.sky.config;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.spring.boot.autoconfigure.DruidDataSourceBuilder;
+import com.sky.datasource.ReadWriteRoutingDataSource;
+import com.sky.datasource.ReplicationLagMonitor;
+import com.sky.properties.DataSourceRoutingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读写分离数据源配置。
+ * 主库沿用spring.datasource.druid的配置，从库复制主库的连接池配置，只替换连接地址和账号
+ */
+@Configuration
+@Slf4j
+public class DataSourceConfiguration {
+
+    /**
+     * 从库未配置获取连接的最长等待时间时使用的值（毫秒），避免从库宕机时读请求一直阻塞
+     */
+    private static final long REPLICA_MAX_WAIT_MILLIS = 3000;
+
+    @Bean(initMethod = "init", destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.druid")
+    public DruidDataSource primaryDataSource() {
+        return DruidDataSourceBuilder.create().build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public ReadWriteRoutingDataSource dataSource(DruidDataSource primaryDataSource,
+                                                 DataSourceRoutingProperties properties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<DataSourceRoutingProperties.Replica> replicaProperties = properties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            DataSourceRoutingProperties.Replica replica = replicaProperties.get(i);
+            String key = "replica-" + i;
+
+            DruidDataSource dataSource = primaryDataSource.cloneDruidDataSource();
+            dataSource.setName(key);
+            dataSource.setUrl(replica.getUrl());
+            if (replica.getUsername() != null) {
+                dataSource.setUsername(replica.getUsername());
+                dataSource.setPassword(replica.getPassword());
+            }
+            if (dataSource.getMaxWait() <= 0) {
+                dataSource.setMaxWait(REPLICA_MAX_WAIT_MILLIS);
+            }
+            replicas.put(key, dataSource);
+        }
+        log.info("开始创建读写分离数据源，从库数量：{}", replicas.size());
+
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas,
+                new ReplicationLagMonitor(replicas, properties));
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.sky.config;
+
+import com.sky.id.NodeIdLease;
+import com.sky.properties.IdGeneratorProperties;
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+@Slf4j
+public class IdGeneratorConfiguration {
+
+    /**
+     * 节点id租约，应用关闭时释放
+     * @param stringRedisTemplate
+     * @param idGeneratorProperties
+     * @return
+     */
+    @Bean(destroyMethod = "stop")
+    public NodeIdLease nodeIdLease(StringRedisTemplate stringRedisTemplate,
+                                   IdGeneratorProperties idGeneratorProperties) {
+        return new NodeIdLease(stringRedisTemplate, idGeneratorProperties);
+    }
+
+    /**
+     * 订单号等业务编号使用的id生成器
+     * @param nodeIdLease
+     * @return
+     */
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(NodeIdLease nodeIdLease) {
+        log.info("开始创建id生成器...");
+        return nodeIdLease.start();
+    }
+}
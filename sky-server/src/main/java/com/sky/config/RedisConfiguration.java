@@ -3,8 +3,18 @@ package com.sky.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sky.cache.CacheEvictMessageListener;
+import com.sky.cache.MybatisCaffeineCache;
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.constant.CacheConstant;
+import com.sky.properties.SearchProperties;
+import com.sky.properties.TwoLevelCacheProperties;
+import com.sky.properties.WebSocketProperties;
+import com.sky.search.CatalogSearchIndex;
+import com.sky.search.SearchIndexMessageListener;
+import com.sky.websocket.OrderPushMessageListener;
+import com.sky.websocket.OrderPushService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,10 +22,15 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 @Configuration
 @Slf4j
 @EnableCaching
@@ -56,18 +71,71 @@ public class RedisConfiguration {
         return redisTemplate;
     }
 
+    /**
+     * 二级缓存管理器：Caffeine本地缓存 + Redis缓存
+     *
+     * @param redisConnectionFactory Redis连接工厂
+     * @param redisTemplate          用于复用其值序列化方式
+     * @param stringRedisTemplate    用于发布缓存失效消息
+     * @param twoLevelCacheProperties 二级缓存配置
+     * @return
+     */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, RedisTemplate redisTemplate) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, RedisTemplate redisTemplate,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             TwoLevelCacheProperties twoLevelCacheProperties) {
+        RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofSeconds(twoLevelCacheProperties.getL2ExpireSeconds()))
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisTemplate.getValueSerializer()));
+        //用户端商品目录缓存的是序列化好的响应体字节，原样存取，不再经过Jackson
+        RedisCacheConfiguration bytesConfig = defaultConfig
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.byteArray());
+
         RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager
                 .RedisCacheManagerBuilder
                 .fromConnectionFactory(redisConnectionFactory)
-                .cacheDefaults(
-                        RedisCacheConfiguration.defaultCacheConfig()
-                                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisTemplate.getValueSerializer()))
-                );
-        return builder.build();
+                .cacheDefaults(defaultConfig)
+                .withCacheConfiguration(CacheConstant.DISH_CACHE, bytesConfig)
+                .withCacheConfiguration(CacheConstant.SETMEAL_CACHE, bytesConfig)
+                .withCacheConfiguration(CacheConstant.SETMEAL_DISH_CACHE, bytesConfig)
+                .withCacheConfiguration(CacheConstant.CATEGORY_CACHE, bytesConfig);
+        RedisCacheManager redisCacheManager = builder.build();
+        redisCacheManager.initializeCaches();
+        log.info("开始创建二级缓存管理器...");
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate,
+                twoLevelCacheProperties);
+        //MyBatis二级缓存由MyBatis创建，借用缓存管理器的频道广播清空消息
+        MybatisCaffeineCache.bind(cacheManager);
+        return cacheManager;
     }
 
-
+    /**
+     * 订阅缓存失效频道和名称索引频道，收到其他节点的消息后清理本地一级缓存、更新本地名称索引
+     *
+     * @param redisConnectionFactory
+     * @param cacheManager
+     * @param twoLevelCacheProperties
+     * @param searchIndex
+     * @param searchProperties
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       TwoLevelCacheManager cacheManager,
+                                                                       TwoLevelCacheProperties twoLevelCacheProperties,
+                                                                       CatalogSearchIndex searchIndex,
+                                                                       SearchProperties searchProperties,
+                                                                       OrderPushService orderPushService,
+                                                                       WebSocketProperties webSocketProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(new CacheEvictMessageListener(cacheManager),
+                new ChannelTopic(twoLevelCacheProperties.getEvictChannel()));
+        container.addMessageListener(new SearchIndexMessageListener(searchIndex),
+                new ChannelTopic(searchProperties.getIndexChannel()));
+        container.addMessageListener(new OrderPushMessageListener(orderPushService),
+                new ChannelTopic(webSocketProperties.getChannel()));
+        return container;
+    }
 }
@@ -7,6 +7,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -90,5 +91,7 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
         //添加到转换器集合中
         log.info("开始进行消息转换器<时间>扩展...");
         converters.add(0,converter);
+        //已序列化好的byte[]响应体直接输出，不能再被json转换器当作对象处理
+        converters.add(0,new ByteArrayHttpMessageConverter());
     }
 }
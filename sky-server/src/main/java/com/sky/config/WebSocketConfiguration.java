@@ -0,0 +1,29 @@
+package com.sky.config;
+
+import com.sky.properties.WebSocketProperties;
+import com.sky.websocket.OrderPushEndpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.server.standard.ServerEndpointExporter;
+import org.springframework.web.socket.server.standard.ServerEndpointRegistration;
+
+/**
+ * WebSocket配置类，把Spring管理的端点注册到Servlet容器
+ */
+@Configuration
+@Slf4j
+public class WebSocketConfiguration {
+
+    @Bean
+    public ServerEndpointExporter serverEndpointExporter() {
+        return new ServerEndpointExporter();
+    }
+
+    @Bean
+    public ServerEndpointRegistration orderPushEndpointRegistration(OrderPushEndpoint orderPushEndpoint,
+                                                                     WebSocketProperties webSocketProperties) {
+        log.info("注册管理端订单推送WebSocket端点：{}", webSocketProperties.getPath());
+        return new ServerEndpointRegistration(webSocketProperties.getPath(), orderPushEndpoint);
+    }
+}
@@ -0,0 +1,49 @@
+package com.sky.controller.admin;
+
+import com.sky.cache.MybatisCacheStats;
+import com.sky.cache.MybatisCaffeineCache;
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.cache.TwoLevelCacheStats;
+import com.sky.result.Result;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 缓存监控
+ */
+@RestController
+@RequestMapping("/admin/cache")
+@Api(tags = "缓存监控接口")
+@Slf4j
+public class CacheController {
+
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+
+    /**
+     * 查询各缓存的一级、二级命中率
+     * @return
+     */
+    @GetMapping("/stats")
+    @ApiOperation("查询缓存命中统计")
+    public Result<List<TwoLevelCacheStats>> stats() {
+        return Result.success(cacheManager.getStats());
+    }
+
+    /**
+     * 查询各mapper命名空间的MyBatis二级缓存大小和命中率
+     * @return
+     */
+    @GetMapping("/mybatis")
+    @ApiOperation("查询MyBatis二级缓存统计")
+    public Result<List<MybatisCacheStats>> mybatisStats() {
+        return Result.success(MybatisCaffeineCache.getAllStats());
+    }
+}
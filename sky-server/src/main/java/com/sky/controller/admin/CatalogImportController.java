@@ -0,0 +1,38 @@
+package com.sky.controller.admin;
+
+import com.sky.result.Result;
+import com.sky.service.CatalogImportService;
+import com.sky.vo.ImportResultVO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 菜品套餐批量导入
+ */
+@RestController
+@RequestMapping("/admin/import")
+@Api(tags = "批量导入相关接口")
+@Slf4j
+public class CatalogImportController {
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    /**
+     * 从xlsx文件批量导入菜品和套餐，用于新门店初始化菜单
+     * @param file
+     * @return 导入统计和失败原因
+     */
+    @PostMapping("/catalog")
+    @ApiOperation("批量导入菜品和套餐")
+    public Result<ImportResultVO> importCatalog(MultipartFile file) {
+        log.info("批量导入菜品和套餐：{}", file.getOriginalFilename());
+        return Result.success(catalogImportService.importCatalog(file));
+    }
+}
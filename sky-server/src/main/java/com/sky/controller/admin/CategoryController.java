@@ -5,6 +5,7 @@ import com.sky.dto.CategoryPageQueryDTO;
 import com.sky.entity.Category;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.result.SeekPageResult;
 import com.sky.service.CategoryService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -51,6 +52,17 @@ public class CategoryController {
         return Result.success(pageResult);
     }
 
+    /**
+     * 分类游标分页查询
+     * @param categoryPageQueryDTO
+     * @return
+     */
+    @GetMapping("/seek")
+    public Result<SeekPageResult> seek(CategoryPageQueryDTO categoryPageQueryDTO) {
+        log.info("分类游标分页查询：{}", categoryPageQueryDTO);
+        return Result.success(categoryService.seekQuery(categoryPageQueryDTO));
+    }
+
     /**
      * 删除分类
      * @param id
@@ -5,16 +5,15 @@ import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.result.SeekPageResult;
 import com.sky.service.DishService;
 import com.sky.vo.DishVO;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/admin/dish")
@@ -24,9 +23,6 @@ public class DishController {
     @Autowired
     private DishService dishService;
 
-    @Autowired
-    private RedisTemplate redisTemplate;
-
     /**
      * 保存菜品信息
      *
@@ -38,16 +34,6 @@ public class DishController {
         log.info("新增菜品......");
         // 保存菜品及其关联的口味信息
         dishService.saveWithFlavor(dishDTO);
-
-        // 清理redis缓存数据
-        String key = "dish_" + dishDTO.getCategoryId();
-        try {
-            redisTemplate.delete(key);
-        } catch (Exception e) {
-            log.info("清理redis缓存数据失败：{}", e.getMessage());
-        }
-
-
         return Result.success();
     }
 
@@ -65,6 +51,17 @@ public class DishController {
         return Result.success(pageResult);
     }
 
+    /**
+     * 菜品游标分页查询
+     * @param dishPageQueryDTO
+     * @return
+     */
+    @GetMapping("/seek")
+    public Result<SeekPageResult> seek(DishPageQueryDTO dishPageQueryDTO) {
+        log.info("菜品游标分页查询：{}", dishPageQueryDTO);
+        return Result.success(dishService.dishSeekQuery(dishPageQueryDTO));
+    }
+
     /**
      * 批量删除菜品
      *
@@ -75,10 +72,6 @@ public class DishController {
     public Result deleteDishByIds(@RequestParam List<Long> ids) {
         log.info("批量删除菜品:{}", ids);
         dishService.deleteDishByIds(ids);
-        // 清理redis缓存数据
-        clearRedisCache();
-
-
         return Result.success();
     }
 
@@ -93,8 +86,6 @@ public class DishController {
     public Result updateDishWithFlavor(@RequestBody DishDTO dishDTO) {
         log.info("更新菜品信息:{}", dishDTO);
         dishService.updateWithFlavor(dishDTO);
-        // 清理redis缓存数据
-        clearRedisCache();
         return Result.success();
     }
 
@@ -110,13 +101,4 @@ public class DishController {
         List<Dish> list = dishService.list(categoryId);
         return Result.success(list);
     }
-
-    private void clearRedisCache() {
-        try {
-            Set keys = redisTemplate.keys("dish_*");
-            redisTemplate.delete(keys);
-        } catch (Exception e) {
-            log.info("清理redis缓存数据失败：{}", e.getMessage());
-        }
-    }
 }
@@ -8,6 +8,7 @@ import com.sky.entity.Employee;
 import com.sky.properties.JwtProperties;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.result.SeekPageResult;
 import com.sky.service.EmployeeService;
 import com.sky.utils.JwtUtil;
 import com.sky.vo.EmployeeLoginVO;
@@ -87,6 +88,17 @@ public class EmployeeController {
 
     }
 
+    /**
+     * 员工游标分页查询
+     * @param employeePageQueryDTO
+     * @return
+     */
+    @GetMapping("/seek")
+    public Result<SeekPageResult> seek(EmployeePageQueryDTO employeePageQueryDTO) {
+        log.info("员工游标分页查询：{}", employeePageQueryDTO);
+        return Result.success(employeeService.seekQuery(employeePageQueryDTO));
+    }
+
     @PostMapping("/status/{status}")
     public Result startOrStop(@RequestParam Long id, @PathVariable Integer status) {
         //通过前端传递的status来决定员工账号的状态，
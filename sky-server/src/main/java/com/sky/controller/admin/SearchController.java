@@ -0,0 +1,38 @@
+package com.sky.controller.admin;
+
+import com.sky.result.Result;
+import com.sky.service.SearchService;
+import com.sky.vo.SearchResultVO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 菜品套餐名称搜索
+ */
+@RestController
+@RequestMapping("/admin/search")
+@Api(tags = "名称搜索相关接口")
+@Slf4j
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    /**
+     * 按名称或拼音首字母搜索菜品和套餐，用于管理端搜索框输入提示
+     * @param keyword
+     * @param limit
+     * @return
+     */
+    @GetMapping
+    @ApiOperation("名称搜索")
+    public Result<SearchResultVO> search(String keyword, Integer limit) {
+        log.info("名称搜索：{}", keyword);
+        return Result.success(searchService.search(keyword, limit));
+    }
+}
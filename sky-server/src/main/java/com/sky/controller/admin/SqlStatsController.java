@@ -0,0 +1,62 @@
+package com.sky.controller.admin;
+
+import com.sky.metrics.StatementMetricsRegistry;
+import com.sky.metrics.StatementStats;
+import com.sky.result.Result;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * SQL语句耗时监控
+ */
+@RestController
+@RequestMapping("/admin/sql")
+@Api(tags = "SQL监控接口")
+@Slf4j
+public class SqlStatsController {
+
+    @Autowired
+    private StatementMetricsRegistry registry;
+
+    /**
+     * 查询各mapper语句的调用次数、行数和耗时分位数
+     * @param mapper mapper接口名，为空时返回全部
+     * @return
+     */
+    @GetMapping("/stats")
+    @ApiOperation("查询SQL语句耗时统计")
+    public Result<List<StatementStats>> stats(String mapper) {
+        return Result.success(registry.getStats(mapper));
+    }
+
+    /**
+     * 清空统计
+     * @return
+     */
+    @DeleteMapping("/stats")
+    @ApiOperation("清空SQL语句耗时统计")
+    public Result reset() {
+        log.info("清空SQL语句耗时统计");
+        registry.reset();
+        return Result.success();
+    }
+
+    /**
+     * 以Prometheus文本格式输出耗时直方图
+     * @return
+     */
+    @GetMapping(value = "/metrics", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ApiOperation("Prometheus格式的SQL指标")
+    public String metrics() {
+        return registry.toPrometheusText();
+    }
+}
@@ -1,15 +1,14 @@
 package com.sky.controller.user;
 
-import com.sky.entity.Category;
-import com.sky.result.Result;
-import com.sky.service.CategoryService;
+import com.sky.service.CatalogService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.List;
 
 @RestController("userCategoryController")
 @RequestMapping("/user/category")
@@ -17,17 +16,20 @@ import java.util.List;
 public class CategoryController {
 
     @Autowired
-    private CategoryService categoryService;
+    private CatalogService catalogService;
 
     /**
      * 查询分类
+     * 缓存中保存的是Result&lt;List&lt;Category&gt;&gt;序列化后的响应体，命中时原样写回
+     *
      * @param type
      * @return
      */
     @GetMapping("/list")
     @ApiOperation("查询分类")
-    public Result<List<Category>> list(Integer type) {
-        List<Category> list = categoryService.list(type);
-        return Result.success(list);
+    public ResponseEntity<byte[]> list(Integer type) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogService.listCategory(type));
     }
 }
@@ -1,20 +1,15 @@
 package com.sky.controller.user;
 
-import com.sky.constant.StatusConstant;
-import com.sky.entity.Dish;
-import com.sky.result.Result;
-import com.sky.service.DishService;
-import com.sky.vo.DishVO;
+import com.sky.service.CatalogService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.List;
 
 @RestController("userDishController")
 @RequestMapping("/user/dish")
@@ -22,54 +17,21 @@ import java.util.List;
 @Api(tags = "C端-菜品浏览接口")
 public class DishController {
     @Autowired
-    private DishService dishService;
-
-    @Autowired
-    private RedisTemplate redisTemplate;
+    private CatalogService catalogService;
 
     /**
      * 根据分类id查询菜品
+     * 缓存中保存的是Result&lt;List&lt;DishVO&gt;&gt;序列化后的响应体，命中时原样写回
      *
      * @param categoryId
      * @return
      */
     @GetMapping("/list")
-    @Cacheable(cacheNames ="dishCache",key = "#categoryId")
-    public Result<List<DishVO>> list(Long categoryId) {
-        //构造查询redis的 key
-//        String key = "dish_" + categoryId;
-//        log.info("从redis缓存中查询菜品数据：{}",key);
-
-        //查询redis有没有菜品
-        List<DishVO> list = null;
-//        try {
-//            list = (List<DishVO>) redisTemplate.opsForValue()
-//                    .get(key);
-//        }catch (Exception e){
-//            log.error("获取redis缓存数据失败：{}",e.getMessage());
-//        }
-
-        //判断菜品是否为空，如果不是空就直接返回菜品集合数据
-//        if (list!=null && list.size()>0){
-//            return Result.success(list);
-//        }
-        //如果是空，直接查询数据库
-        Dish dish = new Dish();
-        dish.setCategoryId(categoryId);
-        dish.setStatus(StatusConstant.ENABLE);//查询起售中的菜品
-
-        list = dishService.listWithFlavor(dish);
-
-        //数据库查询完了之后，把数据存到redis缓存中
-//        try {
-//            redisTemplate.opsForValue().set(key,list);
-//        }
-//        catch (Exception e){
-//            log.error("设置redis缓存失败：{}",e.getMessage());
-//        }
-
-        //返回结果
-        return Result.success(list);
+    @ApiOperation("根据分类id查询菜品")
+    public ResponseEntity<byte[]> list(Long categoryId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogService.listDish(categoryId));
     }
 
 }
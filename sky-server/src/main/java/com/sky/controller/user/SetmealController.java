@@ -1,52 +1,45 @@
 package com.sky.controller.user;
 
-import com.sky.constant.StatusConstant;
-import com.sky.entity.Setmeal;
-import com.sky.result.Result;
-import com.sky.service.SetmealService;
-import com.sky.vo.DishItemVO;
-import io.swagger.annotations.Api;
-import io.swagger.annotations.ApiOperation;
+import com.sky.service.CatalogService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.List;
 
 @RestController("userSetmealController")
 @RequestMapping("/user/setmeal")
 public class SetmealController {
     @Autowired
-    private SetmealService setmealService;
+    private CatalogService catalogService;
 
     /**
      * 条件查询
+     * 缓存中保存的是Result&lt;List&lt;Setmeal&gt;&gt;序列化后的响应体，命中时原样写回
      *
      * @param categoryId
      * @return
      */
     @GetMapping("/list")
-    @Cacheable(cacheNames ="setmealCache",key = "#categoryId")
-    public Result<List<Setmeal>> list(Long categoryId) {
-        Setmeal setmeal = new Setmeal();
-        setmeal.setCategoryId(categoryId);
-        setmeal.setStatus(StatusConstant.ENABLE);
-
-        List<Setmeal> list = setmealService.list(setmeal);
-        return Result.success(list);
+    public ResponseEntity<byte[]> list(Long categoryId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogService.listSetmeal(categoryId));
     }
 
     /**
      * 根据套餐id查询包含的菜品列表
+     * 缓存中保存的是Result&lt;List&lt;DishItemVO&gt;&gt;序列化后的响应体，命中时原样写回
      *
      * @param id
      * @return
      */
     @GetMapping("/dish/{id}")
-    public Result<List<DishItemVO>> dishList(@PathVariable("id") Long id) {
-        List<DishItemVO> list = setmealService.getDishItemById(id);
-        return Result.success(list);
+    public ResponseEntity<byte[]> dishList(@PathVariable("id") Long id) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogService.listSetmealDish(id));
     }
 }
@@ -0,0 +1,46 @@
+package com.sky.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 当前线程使用的数据源
+ */
+public class DataSourceContextHolder {
+
+    private static final ThreadLocal<String> LOOKUP_KEY = new ThreadLocal<>();
+
+    private static final String WRITTEN_ATTRIBUTE = DataSourceContextHolder.class.getName() + ".WRITTEN";
+
+    public static void setLookupKey(String key) {
+        LOOKUP_KEY.set(key);
+    }
+
+    /**
+     * @return 为null时使用主库
+     */
+    public static String getLookupKey() {
+        return LOOKUP_KEY.get();
+    }
+
+    public static void clearLookupKey() {
+        LOOKUP_KEY.remove();
+    }
+
+    /**
+     * 记录当前请求已经写过主库，之后的只读方法也读主库，避免读不到刚写入的数据。
+     * 标记保存在请求属性中，请求结束即失效；不在请求中（定时任务等）时不记录
+     */
+    public static void markWritten() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(WRITTEN_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public static boolean isWritten() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(WRITTEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.sky.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离数据源。
+ * 获取连接时按当前线程的lookup key选择主库或从库，没有设置时使用主库。
+ * 开启事务时连接就已经获取并绑定到事务上，所以切换数据源要在事务开始之前。
+ * 从库连接池和延迟检查随本数据源一起启动、关闭
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Map<String, DataSource> replicas;
+
+    private final List<String> replicaKeys;
+
+    private final ReplicationLagMonitor lagMonitor;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                      ReplicationLagMonitor lagMonitor) {
+        this.replicas = replicas;
+        this.replicaKeys = new ArrayList<>(replicas.keySet());
+        this.lagMonitor = lagMonitor;
+        setDefaultTargetDataSource(primary);
+        setTargetDataSources(new HashMap<>(replicas));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        lagMonitor.start();
+    }
+
+    public void close() throws IOException {
+        lagMonitor.stop();
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof Closeable) {
+                ((Closeable) replica).close();
+            }
+        }
+    }
+
+    /**
+     * 轮询选择一个可用的从库
+     * @return 从库的lookup key，没有可用从库时返回null
+     */
+    public String selectReplica() {
+        int size = replicaKeys.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(counter.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            String key = replicaKeys.get((start + i) % size);
+            if (lagMonitor.isHealthy(key)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return DataSourceContextHolder.getLookupKey();
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.sky.datasource;
+
+import com.sky.properties.DataSourceRoutingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从库复制延迟检查。
+ * 定时查询每个从库的复制状态，延迟超过阈值、复制线程停止或连接失败的从库不再接收读请求，恢复后重新启用
+ */
+@Slf4j
+public class ReplicationLagMonitor {
+
+    private final Map<String, DataSource> replicas;
+
+    private final DataSourceRoutingProperties properties;
+
+    private final Set<String> healthyReplicas = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService executor;
+
+    public ReplicationLagMonitor(Map<String, DataSource> replicas, DataSourceRoutingProperties properties) {
+        this.replicas = replicas;
+        this.properties = properties;
+    }
+
+    public void start() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        if (!properties.isLagCheckEnabled()) {
+            healthyReplicas.addAll(replicas.keySet());
+            log.info("未开启从库复制延迟检查，从库始终可用：{}", replicas.keySet());
+            return;
+        }
+        //首次检查通过前从库不可用，读请求先走主库
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replication-lag-"));
+        executor.scheduleWithFixedDelay(this::checkAll, 0, properties.getLagCheckIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isHealthy(String key) {
+        return healthyReplicas.contains(key);
+    }
+
+    private void checkAll() {
+        replicas.forEach((key, dataSource) -> {
+            Long lag = null;
+            String reason;
+            try {
+                lag = queryLagSeconds(dataSource);
+                reason = lag == null ? "复制未运行" : "复制延迟" + lag + "秒";
+            } catch (SQLException | RuntimeException e) {
+                reason = "查询复制状态失败：" + e.getMessage();
+            }
+
+            if (lag != null && lag <= properties.getMaxReplicationLagSeconds()) {
+                if (healthyReplicas.add(key)) {
+                    log.info("从库{}可用，{}", key, reason);
+                }
+            } else if (healthyReplicas.remove(key)) {
+                log.warn("从库{}不可用，读请求回退到主库：{}", key, reason);
+            }
+        });
+    }
+
+    /**
+     * @return 复制延迟秒数，不是从库或复制线程未运行时返回null
+     */
+    private Long queryLagSeconds(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            ResultSet resultSet;
+            String column;
+            try {
+                //MySQL 8.0.22起使用REPLICA，旧版本只支持SLAVE
+                resultSet = statement.executeQuery("SHOW REPLICA STATUS");
+                column = "Seconds_Behind_Source";
+            } catch (SQLException e) {
+                resultSet = statement.executeQuery("SHOW SLAVE STATUS");
+                column = "Seconds_Behind_Master";
+            }
+            try {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                long lag = resultSet.getLong(column);
+                return resultSet.wasNull() ? null : lag;
+            } finally {
+                resultSet.close();
+            }
+        }
+    }
+
+}
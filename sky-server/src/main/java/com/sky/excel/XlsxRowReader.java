@@ -0,0 +1,151 @@
+package com.sky.excel;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 以SAX事件流方式逐行读取xlsx文件。
+ * 不会把工作表加载成对象模型，内存占用与行数无关（共享字符串表除外，它随不重复的文本数量增长）
+ */
+public class XlsxRowReader {
+
+    public interface RowHandler {
+
+        /**
+         * 读到一行
+         * @param sheetName 工作表名称
+         * @param rowNum 行号，从0开始
+         * @param cells 按列排列的单元格文本，空单元格为null
+         */
+        void row(String sheetName, int rowNum, List<String> cells);
+
+        /**
+         * 一个工作表读取完毕
+         * @param sheetName
+         */
+        void endSheet(String sheetName);
+    }
+
+    /**
+     * 按工作表顺序读取文件中的所有行
+     * @param file xlsx文件
+     * @param handler
+     * @throws IOException 文件无法按xlsx格式解析
+     */
+    public static void read(File file, RowHandler handler) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (OpenXML4JException | RuntimeException e) {
+            throw new IOException("无法打开xlsx文件", e);
+        }
+        try {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            DataFormatter formatter = new DataFormatter();
+
+            //POI 3.16的SheetIterator在部分文件上会把同一个工作表返回两次，按部件名去重
+            Set<String> visited = new HashSet<>();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream in = sheets.next()) {
+                    if (!visited.add(sheets.getSheetPart().getPartName().getName())) {
+                        continue;
+                    }
+                    String sheetName = sheets.getSheetName();
+                    XMLReader parser = SAXHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(
+                            styles, null, strings, new SheetHandler(sheetName, handler), formatter, false));
+                    parser.parse(new InputSource(in));
+                    handler.endSheet(sheetName);
+                }
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("无法解析xlsx文件", e);
+        } finally {
+            //只读打开的文件用revert关闭，close会尝试保存
+            pkg.revert();
+        }
+    }
+
+    /**
+     * 把单元格事件组装成一行
+     */
+    private static class SheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final String sheetName;
+
+        private final RowHandler handler;
+
+        private final List<String> cells = new ArrayList<>();
+
+        private boolean blank;
+
+        SheetHandler(String sheetName, RowHandler handler) {
+            this.sheetName = sheetName;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+            blank = true;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            //整行为空时不回调
+            if (!blank) {
+                handler.row(sheetName, rowNum, new ArrayList<>(cells));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            //缺少单元格引用时视为紧跟上一个单元格
+            int column = cellReference == null ? cells.size() : new CellReference(cellReference).getCol();
+            while (cells.size() < column) {
+                cells.add(null);
+            }
+            String value = formattedValue == null ? null : formattedValue.trim();
+            if (value != null && value.isEmpty()) {
+                value = null;
+            }
+            if (value != null) {
+                blank = false;
+            }
+            if (column < cells.size()) {
+                cells.set(column, value);
+            } else {
+                cells.add(value);
+            }
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+        }
+    }
+
+}
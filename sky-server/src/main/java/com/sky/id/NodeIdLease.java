@@ -0,0 +1,136 @@
+package com.sky.id;
+
+import com.sky.properties.IdGeneratorProperties;
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从Redis租用Snowflake节点id。
+ * 每个节点id对应一个带过期时间的key，值为本进程的随机令牌；定时续租并记录已发出的最大时间戳，
+ * 下一个租到该id的进程从这个时间戳之后开始生成，避免前一个持有者借用过的时间戳被重复使用。
+ * 配置了sky.id.node-id时直接使用配置值，不访问Redis
+ */
+@Slf4j
+public class NodeIdLease {
+
+    //令牌匹配时续租并记录时间戳，返回1；租约已被他人持有或已过期返回0
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "redis.call('expire', KEYS[1], ARGV[2]) " +
+                    "redis.call('set', KEYS[2], ARGV[3]) " +
+                    "return 1 end " +
+                    "return 0", Long.class);
+
+    //令牌匹配时记录时间戳并释放租约
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "redis.call('set', KEYS[2], ARGV[2]) " +
+                    "return redis.call('del', KEYS[1]) end " +
+                    "return 0", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final IdGeneratorProperties properties;
+
+    private final String token = UUID.randomUUID().toString();
+
+    private volatile long leasedNodeId = -1;
+
+    private SnowflakeIdGenerator generator;
+
+    private ScheduledExecutorService executor;
+
+    public NodeIdLease(StringRedisTemplate stringRedisTemplate, IdGeneratorProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * 确定节点id并创建id生成器，使用租约时开始定时续租
+     * @return
+     */
+    public synchronized SnowflakeIdGenerator start() {
+        if (properties.getNodeId() >= 0) {
+            log.info("使用配置的节点id：{}", properties.getNodeId());
+            generator = new SnowflakeIdGenerator(properties.getNodeId());
+            return generator;
+        }
+        long minTimestamp = acquire();
+        generator = new SnowflakeIdGenerator(leasedNodeId, minTimestamp);
+        long renewSeconds = Math.max(1, properties.getLeaseSeconds() / 3);
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("node-id-lease-"));
+        executor.scheduleWithFixedDelay(this::renew, renewSeconds, renewSeconds, TimeUnit.SECONDS);
+        return generator;
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, keys(leasedNodeId), token,
+                    String.valueOf(generator.getLastTimestamp()));
+            log.info("释放节点id：{}", leasedNodeId);
+        } catch (RuntimeException e) {
+            log.warn("释放节点id{}失败，等待租约过期：{}", leasedNodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 从随机位置开始依次尝试租用空闲的节点id
+     * @return 该节点id上一个持有者可能用过的最大时间戳
+     */
+    private long acquire() {
+        long count = SnowflakeIdGenerator.MAX_NODE_ID + 1;
+        long offset = ThreadLocalRandom.current().nextLong(count);
+        for (long i = 0; i < count; i++) {
+            long nodeId = (offset + i) % count;
+            List<String> keys = keys(nodeId);
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(keys.get(0), token, properties.getLeaseSeconds(), TimeUnit.SECONDS);
+            if (Boolean.TRUE.equals(acquired)) {
+                leasedNodeId = nodeId;
+                String lastTimestamp = stringRedisTemplate.opsForValue().get(keys.get(1));
+                log.info("租用节点id：{}", nodeId);
+                //上一个持有者最后一次记录时间戳之后，到租约过期前仍可能继续发号
+                return lastTimestamp == null ? 0
+                        : Long.parseLong(lastTimestamp) + TimeUnit.SECONDS.toMillis(properties.getLeaseSeconds());
+            }
+        }
+        throw new IllegalStateException("没有空闲的节点id可以租用");
+    }
+
+    private void renew() {
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, keys(leasedNodeId), token,
+                    String.valueOf(properties.getLeaseSeconds()), String.valueOf(generator.getLastTimestamp()));
+            if (renewed == null || renewed == 0) {
+                //租约已过期，该id可能已被其他节点租走，换一个新的id继续生成
+                log.error("节点id{}的租约已丢失，重新租用", leasedNodeId);
+                long minTimestamp = acquire();
+                generator.changeNodeId(leasedNodeId, minTimestamp);
+            }
+        } catch (RuntimeException e) {
+            log.warn("续租节点id{}失败：{}", leasedNodeId, e.getMessage());
+        }
+    }
+
+    private List<String> keys(long nodeId) {
+        String key = properties.getLeaseKeyPrefix() + nodeId;
+        return Arrays.asList(key, key + ":ts");
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.sky.idempotency;
+
+import com.sky.properties.IdempotencyProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求令牌在Redis中的状态。
+ * 每个令牌是一个hash，属于签发时的用户，字段为使用范围（如下单、支付），同一令牌在每个范围内只能被处理一次。
+ * 字段不存在表示未使用，RUNNING:处理时限:随机值 表示正在处理，DONE:结果JSON 表示已完成
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final String RUNNING = "RUNNING:";
+    private static final String DONE = "DONE:";
+
+    //令牌不存在返回INVALID；未使用或处理已超时时写入ARGV[3]并返回CLAIMED；否则返回当前状态
+    private static final RedisScript<String> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 'INVALID' end " +
+                    "local state = redis.call('hget', KEYS[1], ARGV[1]) " +
+                    "local deadline = state and string.match(state, '^RUNNING:(%d+):') " +
+                    "if not state or (deadline and tonumber(deadline) < tonumber(ARGV[2])) then " +
+                    "redis.call('hset', KEYS[1], ARGV[1], ARGV[3]) " +
+                    "return 'CLAIMED' end " +
+                    "return state", String.class);
+
+    //仍由本次请求持有时删除处理状态，令牌可以再次使用
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hget', KEYS[1], ARGV[1]) == ARGV[2] then " +
+                    "return redis.call('hdel', KEYS[1], ARGV[1]) end " +
+                    "return 0", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private IdempotencyProperties properties;
+
+    /**
+     * 为用户签发新令牌
+     * @param userId
+     * @return
+     */
+    public String issue(Long userId) {
+        String token = UUID.randomUUID().toString().replace("-", "");
+        String key = keyOf(userId, token);
+        stringRedisTemplate.opsForHash().put(key, "issued", Long.toString(System.currentTimeMillis()));
+        stringRedisTemplate.expire(key, properties.getTtlSeconds(), TimeUnit.SECONDS);
+        return token;
+    }
+
+    /**
+     * 尝试认领令牌在指定范围内的处理权
+     * @param userId
+     * @param token
+     * @param scope
+     * @return
+     */
+    public Claim claim(Long userId, String token, String scope) {
+        long now = System.currentTimeMillis();
+        String owner = RUNNING + (now + TimeUnit.SECONDS.toMillis(properties.getRunningTimeoutSeconds()))
+                + ":" + UUID.randomUUID();
+        String state = stringRedisTemplate.execute(CLAIM_SCRIPT, Collections.singletonList(keyOf(userId, token)),
+                scope, Long.toString(now), owner);
+        if ("CLAIMED".equals(state)) {
+            return new Claim(Claim.Status.CLAIMED, owner);
+        }
+        if (state == null || "INVALID".equals(state)) {
+            return new Claim(Claim.Status.INVALID, null);
+        }
+        if (state.startsWith(DONE)) {
+            return new Claim(Claim.Status.DONE, state.substring(DONE.length()));
+        }
+        return new Claim(Claim.Status.RUNNING, null);
+    }
+
+    /**
+     * 保存处理结果，之后的重复请求直接返回该结果
+     * @param userId
+     * @param token
+     * @param scope
+     * @param result 结果的JSON
+     */
+    public void complete(Long userId, String token, String scope, String result) {
+        String key = keyOf(userId, token);
+        stringRedisTemplate.opsForHash().put(key, scope, DONE + result);
+        stringRedisTemplate.expire(key, properties.getTtlSeconds(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * 处理失败时释放处理权
+     * @param userId
+     * @param token
+     * @param scope
+     * @param owner 认领时写入的处理状态
+     */
+    public void release(Long userId, String token, String scope, String owner) {
+        stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(keyOf(userId, token)), scope, owner);
+    }
+
+    private String keyOf(Long userId, String token) {
+        return properties.getKeyPrefix() + userId + ":" + token;
+    }
+
+    /**
+     * 认领结果，CLAIMED时value为写入的处理状态，DONE时为结果JSON
+     */
+    public static class Claim {
+
+        public enum Status {
+            CLAIMED, RUNNING, DONE, INVALID
+        }
+
+        private final Status status;
+
+        private final String value;
+
+        Claim(Status status, String value) {
+            this.status = status;
+            this.value = value;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+}
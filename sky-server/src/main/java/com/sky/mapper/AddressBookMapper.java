@@ -0,0 +1,18 @@
+package com.sky.mapper;
+
+import com.sky.entity.AddressBook;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface AddressBookMapper {
+
+    /**
+     * 查询用户自己的地址，地址不属于该用户时返回null
+     * @param id
+     * @param userId
+     * @return
+     */
+    @Select("select * from address_book where id = #{id} and user_id = #{userId}")
+    AddressBook getByIdAndUserId(Long id, Long userId);
+}
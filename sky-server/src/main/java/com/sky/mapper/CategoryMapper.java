@@ -3,11 +3,13 @@ package com.sky.mapper;
 import com.github.pagehelper.Page;
 import com.sky.annotation.AutoFill;
 import com.sky.enumeration.OperationType;
+import com.sky.result.PageCursor;
 import com.sky.dto.CategoryPageQueryDTO;
 import com.sky.entity.Category;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
 import java.util.List;
 
 @Mapper
@@ -30,6 +32,15 @@ public interface CategoryMapper {
      */
     Page<Category> pageQuery(CategoryPageQueryDTO categoryPageQueryDTO);
 
+    /**
+     * 游标分页查询，按(create_time, id)倒序从游标位置之后开始读取
+     * @param query 查询条件
+     * @param cursor 上一页最后一条记录的位置，为null时从第一条开始
+     * @param limit 最多返回的记录数
+     * @return
+     */
+    List<Category> seekQuery(CategoryPageQueryDTO query, PageCursor cursor, int limit);
+
     /**
      * 根据id删除分类
      * @param id
@@ -50,4 +61,12 @@ public interface CategoryMapper {
      * @return
      */
     List<Category> list(Integer type);
+
+    /**
+     * 根据类型查询全部分类，包括已禁用的分类
+     * @param type
+     * @return
+     */
+    @Select("select * from category where type = #{type}")
+    List<Category> listAllByType(Integer type);
 }
@@ -12,10 +12,31 @@ public interface DishFlavorMapper {
      * 批量插入口味数据
      * @param flavors
      */
-    void insertBatch(List<DishFlavor> flavors);
+    int insertBatch(List<DishFlavor> flavors);
+
+    /**
+     * 按口味id批量修改口味数据
+     * @param flavors
+     * @return
+     */
+    int updateBatch(List<DishFlavor> flavors);
+
+    /**
+     * 根据口味id集合删除口味
+     * @param ids
+     * @return
+     */
+    int deleteByIds(List<Long> ids);
 
     void deleteBatchByIds(List<Long> ids);
 
     @Select("select * from dish_flavor where dish_id=#{dishId}")
     List<DishFlavor> getFlavorsByDishId(Long dishId);
+
+    /**
+     * 根据菜品id集合批量查询口味数据
+     * @param dishIds
+     * @return
+     */
+    List<DishFlavor> getByDishIds(List<Long> dishIds);
 }
@@ -5,13 +5,17 @@ import com.sky.annotation.AutoFill;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.enumeration.OperationType;
+import com.sky.result.PageCursor;
 import com.sky.vo.DishVO;
+import org.apache.ibatis.annotations.CacheNamespaceRef;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 
 @Mapper
+@CacheNamespaceRef(DishMapper.class)
 public interface DishMapper {
 
     /**
@@ -19,6 +23,7 @@ public interface DishMapper {
      * @param categoryId
      * @return
      */
+    @Options(useCache = false)
     @Select("select count(id) from dish where category_id = #{categoryId}")
     Integer countByCategoryId(Long categoryId);
 
@@ -27,13 +32,90 @@ public interface DishMapper {
 
     Page<DishVO> pageQuery(DishPageQueryDTO dishPageQueryDTO);
 
+    /**
+     * 游标分页查询，按(create_time, id)倒序从游标位置之后开始读取
+     * @param query 查询条件
+     * @param cursor 上一页最后一条记录的位置，为null时从第一条开始
+     * @param limit 最多返回的记录数
+     * @return
+     */
+    List<DishVO> seekQuery(DishPageQueryDTO query, PageCursor cursor, int limit);
+
     @Select("select * from dish where id = #{id}")
     Dish getById(Long id);
 
+    /**
+     * 根据id查询菜品，不走二级缓存，用于修改前读取数据库中的当前数据
+     * @param id
+     * @return
+     */
+    @Options(useCache = false)
+    @Select("select * from dish where id = #{id}")
+    Dish getByIdNoCache(Long id);
+
+    /**
+     * 查询所有菜品的id和名称，用于建立名称索引
+     * @return
+     */
+    @Options(useCache = false)
+    @Select("select id, name from dish")
+    List<Dish> listIdAndName();
+
+    /**
+     * 表内容的指纹：行数和最大修改时间，新增、删除、修改都会改变它，用于判断名称索引是否需要重建
+     * @return
+     */
+    @Options(useCache = false)
+    @Select("select concat(count(*), ',', ifnull(max(update_time), '')) from dish")
+    String getFingerprint();
+
+    /**
+     * 根据id查询菜品及其口味，一次查询完成
+     * @param id
+     * @return
+     */
+    DishVO getByIdWithFlavor(Long id);
+
     void deleteBatchByIds(List<Long> ids);
 
+    /**
+     * 批量插入菜品，生成的主键回填到每个菜品的id
+     * @param dishes
+     * @return
+     */
+    int insertBatch(List<Dish> dishes);
+
+    /**
+     * 查询名称集合中已经存在的菜品名称
+     * @param names
+     * @return
+     */
+    List<String> getNamesByNames(List<String> names);
+
+    /**
+     * 根据名称集合查询菜品的id、名称、价格和状态
+     * @param names
+     * @return
+     */
+    List<Dish> listByNames(List<String> names);
+
+    /**
+     * 统计id集合中指定状态的菜品数量
+     * @param ids
+     * @param status
+     * @return
+     */
+    int countByIdsAndStatus(List<Long> ids, Integer status);
+
+    /**
+     * 根据id集合查询所属的分类id
+     * @param ids
+     * @return
+     */
+    List<Long> getCategoryIdsByIds(List<Long> ids);
+
     @AutoFill(value =OperationType.UPDATE)
-    void updateDish(Dish dish);
+    int updateDish(Dish dish);
 
     /**
      * 动态条件查询菜品
@@ -43,10 +125,13 @@ public interface DishMapper {
     List<Dish> list(Dish dish);
 
     /**
-     * 根据套餐id查询菜品
+     * 统计套餐中指定状态的菜品数量
      * @param setmealId
+     * @param status
      * @return
      */
-    @Select("select a.* from dish a left join setmeal_dish b on a.id = b.dish_id where b.setmeal_id = #{setmealId}")
-    List<Dish> getBySetmealId(Long setmealId);
+    @Options(useCache = false)
+    @Select("select count(a.id) from dish a join setmeal_dish b on a.id = b.dish_id " +
+            "where b.setmeal_id = #{setmealId} and a.status = #{status}")
+    int countBySetmealIdAndStatus(Long setmealId, Integer status);
 }
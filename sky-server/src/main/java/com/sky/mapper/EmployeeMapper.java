@@ -6,11 +6,16 @@ import com.sky.dto.EmployeeDTO;
 import com.sky.dto.EmployeePageQueryDTO;
 import com.sky.entity.Employee;
 import com.sky.enumeration.OperationType;
+import com.sky.result.PageCursor;
 import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.CacheNamespaceRef;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 @Mapper
+@CacheNamespaceRef(EmployeeMapper.class)
 public interface EmployeeMapper {
 
     /**
@@ -34,6 +39,15 @@ public interface EmployeeMapper {
 
     Page<Employee> pageQuery(EmployeePageQueryDTO employeePageQueryDTO);
 
+    /**
+     * 游标分页查询，按(create_time, id)倒序从游标位置之后开始读取
+     * @param query 查询条件
+     * @param cursor 上一页最后一条记录的位置，为null时从第一条开始
+     * @param limit 最多返回的记录数
+     * @return
+     */
+    List<Employee> seekQuery(EmployeePageQueryDTO query, PageCursor cursor, int limit);
+
     @AutoFill(value = OperationType.UPDATE)
     void update(Employee employee);
 
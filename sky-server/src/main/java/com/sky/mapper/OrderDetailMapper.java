@@ -0,0 +1,24 @@
+package com.sky.mapper;
+
+import com.sky.entity.OrderDetail;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+@Mapper
+public interface OrderDetailMapper {
+
+    /**
+     * 一条多行insert插入订单的全部明细
+     * @param orderDetails
+     * @return 插入的行数
+     */
+    int insertBatch(List<OrderDetail> orderDetails);
+
+    /**
+     * 查询多个订单的全部明细
+     * @param orderIds
+     * @return
+     */
+    List<OrderDetail> getByOrderIds(List<Long> orderIds);
+}
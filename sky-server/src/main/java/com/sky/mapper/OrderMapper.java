@@ -0,0 +1,66 @@
+package com.sky.mapper;
+
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.Orders;
+import com.sky.result.PageCursor;
+import com.sky.vo.OrderVO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface OrderMapper {
+
+    /**
+     * 插入订单，回填主键
+     * @param orders
+     */
+    void insert(Orders orders);
+
+    @Select("select * from orders where id = #{id}")
+    Orders getById(Long id);
+
+    /**
+     * 查询订单状态相关字段，用于状态转换前的检查
+     * @param id
+     * @return
+     */
+    @Select("select id, user_id, status, pay_status from orders where id = #{id}")
+    Orders getStatusById(Long id);
+
+    /**
+     * 根据订单号查询用户自己的订单
+     * @param number
+     * @param userId
+     * @return
+     */
+    @Select("select * from orders where number = #{number} and user_id = #{userId}")
+    Orders getByNumberAndUserId(String number, Long userId);
+
+    /**
+     * 条件更新订单状态，只有订单仍处于fromStatus时才会更新
+     * @param orders 订单id、目标状态及随状态变化的字段，为null的字段不更新
+     * @param fromStatus 期望的当前状态
+     * @return 更新的行数，0表示状态已被其他请求改变
+     */
+    int updateStatus(Orders orders, Integer fromStatus);
+
+    /**
+     * 批量条件更新订单状态，只更新仍处于fromStatus的订单
+     * @param ids
+     * @param orders 要修改的字段，id被忽略
+     * @param fromStatus
+     * @return 实际更新的行数
+     */
+    int updateStatusBatch(List<Long> ids, Orders orders, Integer fromStatus);
+
+    /**
+     * 用户订单的游标分页查询，按(order_time, id)倒序从游标位置之后开始读取
+     * @param query 查询条件，userId必填
+     * @param cursor 上一页最后一条记录的位置，createTime为下单时间，为null时从第一条开始
+     * @param limit 最多返回的记录数
+     * @return
+     */
+    List<OrderVO> seekByUser(OrdersPageQueryDTO query, PageCursor cursor, int limit);
+}
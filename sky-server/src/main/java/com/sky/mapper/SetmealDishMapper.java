@@ -1,7 +1,6 @@
 package com.sky.mapper;
 
 import com.sky.entity.SetmealDish;
-import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
@@ -12,18 +11,38 @@ public interface SetmealDishMapper {
 
     List<Long> getSetmealIdsByDishIds(List<Long> ids);
 
+    /**
+     * 统计关联了这些菜品的套餐菜品关系数量
+     * @param dishIds
+     * @return
+     */
+    int countByDishIds(List<Long> dishIds);
+
     /**
      * 批量保存套餐和菜品的关联关系
      * @param setmealDishes
      */
-    void insertBatch(List<SetmealDish> setmealDishes);
+    int insertBatch(List<SetmealDish> setmealDishes);
 
     /**
-     * 根据套餐id删除套餐和菜品的关联关系
-     * @param setmealId
+     * 按关联关系id批量修改菜品名称、价格和份数
+     * @param setmealDishes
+     * @return
+     */
+    int updateBatch(List<SetmealDish> setmealDishes);
+
+    /**
+     * 根据关联关系id集合删除套餐和菜品的关联关系
+     * @param ids
+     * @return
+     */
+    int deleteByIds(List<Long> ids);
+
+    /**
+     * 根据套餐id集合批量删除套餐和菜品的关联关系
+     * @param setmealIds
      */
-    @Delete("delete from setmeal_dish where setmeal_id = #{setmealId}")
-    void deleteBySetmealId(Long setmealId);
+    void deleteBySetmealIds(List<Long> setmealIds);
 
     /**
      * 根据套餐id查询套餐和菜品的关联关系
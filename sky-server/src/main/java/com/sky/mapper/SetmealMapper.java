@@ -6,15 +6,18 @@ import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.entity.Setmeal;
 import com.sky.entity.SetmealDish;
 import com.sky.enumeration.OperationType;
+import com.sky.result.PageCursor;
 import com.sky.vo.DishItemVO;
 import com.sky.vo.SetmealVO;
-import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.CacheNamespaceRef;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 
 @Mapper
+@CacheNamespaceRef(SetmealMapper.class)
 public interface SetmealMapper {
 
     /**
@@ -26,11 +29,57 @@ public interface SetmealMapper {
     Setmeal getById(Long id);
 
     /**
-     * 根据id删除套餐
-     * @param setmealId
+     * 根据id查询套餐，不走二级缓存，用于修改前读取数据库中的当前数据
+     * @param id
+     * @return
+     */
+    @Options(useCache = false)
+    @Select("select * from setmeal where id = #{id}")
+    Setmeal getByIdNoCache(Long id);
+
+    /**
+     * 根据id查询套餐及其套餐菜品关系，一次查询完成
+     * @param id
+     * @return
+     */
+    SetmealVO getByIdWithDish(Long id);
+
+    /**
+     * 查询所有套餐的id和名称，用于建立名称索引
+     * @return
+     */
+    @Options(useCache = false)
+    @Select("select id, name from setmeal")
+    List<Setmeal> listIdAndName();
+
+    /**
+     * 表内容的指纹：行数和最大修改时间，新增、删除、修改都会改变它，用于判断名称索引是否需要重建
+     * @return
+     */
+    @Options(useCache = false)
+    @Select("select concat(count(*), ',', ifnull(max(update_time), '')) from setmeal")
+    String getFingerprint();
+
+    /**
+     * 根据id集合查询所属的分类id
+     * @param ids
+     * @return
+     */
+    List<Long> getCategoryIdsByIds(List<Long> ids);
+
+    /**
+     * 统计id集合中指定状态的套餐数量
+     * @param ids
+     * @param status
+     * @return
      */
-    @Delete("delete from setmeal where id = #{id}")
-    void deleteById(Long setmealId);
+    int countByIdsAndStatus(List<Long> ids, Integer status);
+
+    /**
+     * 根据id集合批量删除套餐
+     * @param ids
+     */
+    void deleteByIds(List<Long> ids);
 
 
     /**
@@ -45,6 +94,7 @@ public interface SetmealMapper {
      * @param setmealId
      * @return
      */
+    @Options(useCache = false)
     @Select("select sd.name, sd.copies, d.image, d.description " +
             "from setmeal_dish sd left join dish d on sd.dish_id = d.id " +
             "where sd.setmeal_id = #{setmealId}")
@@ -56,11 +106,21 @@ public interface SetmealMapper {
      * @return
      */
     Page<SetmealVO> pageQuery(SetmealPageQueryDTO setmealPageQueryDTO);
+
+    /**
+     * 游标分页查询，按(create_time, id)倒序从游标位置之后开始读取
+     * @param query 查询条件
+     * @param cursor 上一页最后一条记录的位置，为null时从第一条开始
+     * @param limit 最多返回的记录数
+     * @return
+     */
+    List<SetmealVO> seekQuery(SetmealPageQueryDTO query, PageCursor cursor, int limit);
     /**
      * 根据分类id查询套餐的数量
      * @param id
      * @return
      */
+    @Options(useCache = false)
     @Select("select count(id) from setmeal where category_id = #{categoryId}")
     Integer countByCategoryId(Long id);
 
@@ -71,7 +131,21 @@ public interface SetmealMapper {
     @AutoFill(OperationType.INSERT)
     void insert(Setmeal setmeal);
 
+    /**
+     * 批量插入套餐，生成的主键回填到每个套餐的id
+     * @param setmeals
+     * @return
+     */
+    int insertBatch(List<Setmeal> setmeals);
+
+    /**
+     * 查询名称集合中已经存在的套餐名称
+     * @param names
+     * @return
+     */
+    List<String> getNamesByNames(List<String> names);
+
 
     @AutoFill(OperationType.UPDATE)
-    void update(Setmeal setmeal);
+    int update(Setmeal setmeal);
 }
@@ -0,0 +1,35 @@
+package com.sky.mapper;
+
+import com.sky.entity.ShoppingCart;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface ShoppingCartMapper {
+
+    /**
+     * 查询用户购物车中的全部商品
+     * @param userId
+     * @return
+     */
+    @Select("select * from shopping_cart where user_id = #{userId}")
+    List<ShoppingCart> listByUserId(Long userId);
+
+    /**
+     * 删除用户购物车中的全部商品
+     * @param userId
+     * @return 删除的行数
+     */
+    @Delete("delete from shopping_cart where user_id = #{userId}")
+    int deleteByUserId(Long userId);
+
+    /**
+     * 一条多行insert写入购物车商品
+     * @param items
+     * @return 插入的行数
+     */
+    int insertBatch(List<ShoppingCart> items);
+}
@@ -0,0 +1,17 @@
+package com.sky.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface TableStatMapper {
+
+    /**
+     * 查询表的估算行数（InnoDB统计信息，不扫描表）
+     * @param tableName
+     * @return
+     */
+    @Select("select table_rows from information_schema.tables " +
+            "where table_schema = database() and table_name = #{tableName}")
+    Long getEstimatedRows(String tableName);
+}
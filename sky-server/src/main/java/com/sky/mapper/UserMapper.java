@@ -1,13 +1,18 @@
 package com.sky.mapper;
 
 import com.sky.entity.User;
+import org.apache.ibatis.annotations.CacheNamespaceRef;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
 @Mapper
+@CacheNamespaceRef(UserMapper.class)
 public interface UserMapper {
     @Select("select * from user where openid=#{openid}")
     User getByOpenid(String openid);
 
+    @Select("select * from user where id = #{id}")
+    User getById(Long id);
+
     void insertUser(User user);
 }
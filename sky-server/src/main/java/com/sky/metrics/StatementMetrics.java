@@ -0,0 +1,107 @@
+package com.sky.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一条mapper语句的耗时直方图和行数累计。
+ * 桶边界固定，记录一次只做一次二分查找和几次LongAdder累加，并发写入不加锁
+ */
+public class StatementMetrics {
+
+    /**
+     * 桶上界（微秒），最后一个桶收集超过5秒的调用
+     */
+    static final long[] BUCKET_BOUNDS_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, Long.MAX_VALUE
+    };
+
+    private final String statementId;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length];
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder slowCount = new LongAdder();
+
+    StatementMetrics(String statementId) {
+        this.statementId = statementId;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos, int rowCount, boolean failed, boolean slow) {
+        int index = Arrays.binarySearch(BUCKET_BOUNDS_MICROS, nanos / 1_000);
+        buckets[index >= 0 ? index : -index - 1].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        if (failed) {
+            errors.increment();
+        }
+        if (slow) {
+            slowCount.increment();
+        }
+    }
+
+    String getStatementId() {
+        return statementId;
+    }
+
+    /**
+     * 生成统计快照，分位数按所在桶的上界估算
+     */
+    StatementStats snapshot() {
+        long[] bucketCounts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            bucketCounts[i] = buckets[i].sum();
+            total += bucketCounts[i];
+        }
+        int dot = statementId.lastIndexOf('.');
+        return StatementStats.builder()
+                .statementId(statementId)
+                .mapper(dot > 0 ? statementId.substring(0, dot) : statementId)
+                .count(total)
+                .errorCount(errors.sum())
+                .slowCount(slowCount.sum())
+                .rows(rows.sum())
+                .totalMillis(totalNanos.sum() / 1_000_000.0)
+                .avgMillis(total == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / total)
+                .maxMillis(maxNanos.get() / 1_000_000.0)
+                .p50Millis(percentileMillis(bucketCounts, total, 0.50))
+                .p95Millis(percentileMillis(bucketCounts, total, 0.95))
+                .p99Millis(percentileMillis(bucketCounts, total, 0.99))
+                .bucketCounts(bucketCounts)
+                .build();
+    }
+
+    private double percentileMillis(long[] bucketCounts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                //最后一个桶没有上界，用最大值代替
+                return BUCKET_BOUNDS_MICROS[i] == Long.MAX_VALUE
+                        ? maxNanos.get() / 1_000_000.0 : BUCKET_BOUNDS_MICROS[i] / 1_000.0;
+            }
+        }
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.sky.metrics;
+
+import com.sky.properties.SqlMetricsProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 统计每条mapper语句的耗时和行数，超过阈值时记录慢查询日志。
+ * 正常路径只有两次nanoTime和一次计数累加，绑定参数只在慢查询时才解析
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+@Slf4j
+public class StatementMetricsInterceptor implements Interceptor {
+
+    @Autowired
+    private SqlMetricsProperties sqlMetricsProperties;
+
+    @Autowired
+    private StatementMetricsRegistry registry;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!sqlMetricsProperties.isMetricsEnabled()) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Object[] args = invocation.getArgs();
+            MappedStatement ms = (MappedStatement) args[0];
+            long threshold = sqlMetricsProperties.getSlowThresholdMillis();
+            boolean slow = threshold > 0 && elapsed >= threshold * 1_000_000;
+            if (slow) {
+                logSlow(invocation, ms, elapsed, failed);
+            }
+            registry.record(ms.getId(), elapsed, rowCount(result), failed, slow);
+        }
+    }
+
+    private static int rowCount(Object result) {
+        if (result instanceof List) {
+            return ((List<?>) result).size();
+        }
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        return 0;
+    }
+
+    private void logSlow(Invocation invocation, MappedStatement ms, long elapsed, boolean failed) {
+        try {
+            Object[] args = invocation.getArgs();
+            Object parameter = args[1];
+            BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : ms.getBoundSql(parameter);
+            String sql = boundSql.getSql().replaceAll("\\s+", " ").trim();
+            log.warn("慢查询 {} 耗时{}ms{}: {} 参数: {}", ms.getId(), elapsed / 1_000_000,
+                    failed ? "（执行失败）" : "", sql, parameterValues(ms.getConfiguration(), boundSql, parameter));
+        } catch (RuntimeException e) {
+            //日志失败不能影响业务语句的结果
+            log.warn("慢查询 {} 耗时{}ms，解析绑定参数失败：{}", ms.getId(), elapsed / 1_000_000, e.getMessage());
+        }
+    }
+
+    /**
+     * 按DefaultParameterHandler的规则取出每个占位符对应的参数值
+     */
+    private List<String> parameterValues(Configuration configuration, BoundSql boundSql, Object parameter) {
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        List<String> values = new ArrayList<>(mappings.size());
+        for (ParameterMapping mapping : mappings) {
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameter == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+                value = parameter;
+            } else {
+                value = configuration.newMetaObject(parameter).getValue(property);
+            }
+            values.add(truncate(String.valueOf(value)));
+        }
+        return values;
+    }
+
+    private String truncate(String value) {
+        int max = sqlMetricsProperties.getMaxParameterLength();
+        if (max <= 0 || value.length() <= max) {
+            return value;
+        }
+        return value.substring(0, max) + "...";
+    }
+
+}
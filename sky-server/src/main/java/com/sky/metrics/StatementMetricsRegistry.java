@@ -0,0 +1,93 @@
+package com.sky.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 所有mapper语句的耗时统计
+ */
+@Component
+public class StatementMetricsRegistry {
+
+    private final Map<String, StatementMetrics> metrics = new ConcurrentHashMap<>();
+
+    public void record(String statementId, long nanos, int rowCount, boolean failed, boolean slow) {
+        //先get再computeIfAbsent，已存在时不进入computeIfAbsent的加锁路径
+        StatementMetrics statementMetrics = metrics.get(statementId);
+        if (statementMetrics == null) {
+            statementMetrics = metrics.computeIfAbsent(statementId, StatementMetrics::new);
+        }
+        statementMetrics.record(nanos, rowCount, failed, slow);
+    }
+
+    /**
+     * 查询统计，按总耗时倒序
+     * @param mapper mapper接口全名或简单类名，为空时返回全部
+     * @return
+     */
+    public List<StatementStats> getStats(String mapper) {
+        return metrics.values().stream()
+                .map(StatementMetrics::snapshot)
+                .filter(stats -> mapper == null || mapper.isEmpty()
+                        || stats.getMapper().equals(mapper) || stats.getMapper().endsWith("." + mapper))
+                .sorted(Comparator.comparingDouble(StatementStats::getTotalMillis).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        metrics.clear();
+    }
+
+    /**
+     * 以Prometheus文本格式输出直方图，可直接被Prometheus抓取
+     * @return
+     */
+    public String toPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP sky_sql_statement_seconds MyBatis mapper statement latency\n");
+        text.append("# TYPE sky_sql_statement_seconds histogram\n");
+        List<StatementStats> statsList = getStats(null);
+        for (StatementStats stats : statsList) {
+            String labels = "statement=\"" + stats.getStatementId() + "\"";
+            long cumulative = 0;
+            long[] bucketCounts = stats.getBucketCounts();
+            for (int i = 0; i < bucketCounts.length; i++) {
+                cumulative += bucketCounts[i];
+                long bound = StatementMetrics.BUCKET_BOUNDS_MICROS[i];
+                String le = bound == Long.MAX_VALUE ? "+Inf" : format(bound / 1_000_000.0);
+                text.append("sky_sql_statement_seconds_bucket{").append(labels)
+                        .append(",le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+            }
+            text.append("sky_sql_statement_seconds_sum{").append(labels).append("} ")
+                    .append(format(stats.getTotalMillis() / 1_000)).append('\n');
+            text.append("sky_sql_statement_seconds_count{").append(labels).append("} ")
+                    .append(stats.getCount()).append('\n');
+        }
+        appendCounter(text, statsList, "sky_sql_statement_rows_total", "Rows returned or affected", StatementStats::getRows);
+        appendCounter(text, statsList, "sky_sql_statement_errors_total", "Statements that threw", StatementStats::getErrorCount);
+        appendCounter(text, statsList, "sky_sql_statement_slow_total", "Statements over the slow threshold", StatementStats::getSlowCount);
+        return text.toString();
+    }
+
+    private static void appendCounter(StringBuilder text, List<StatementStats> statsList, String name, String help,
+                                      ToLongFunction<StatementStats> value) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" counter\n");
+        for (StatementStats stats : statsList) {
+            text.append(name).append("{statement=\"").append(stats.getStatementId()).append("\"} ")
+                    .append(value.applyAsLong(stats)).append('\n');
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+}
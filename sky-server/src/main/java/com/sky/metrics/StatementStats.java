@@ -0,0 +1,55 @@
+package com.sky.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * mapper语句耗时统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementStats implements Serializable {
+
+    //语句id，即mapper接口全名加方法名
+    private String statementId;
+
+    //mapper接口全名
+    private String mapper;
+
+    //执行次数
+    private long count;
+
+    //抛出异常的次数
+    private long errorCount;
+
+    //超过慢查询阈值的次数
+    private long slowCount;
+
+    //查询返回或更新影响的总行数
+    private long rows;
+
+    //总耗时（毫秒）
+    private double totalMillis;
+
+    //平均耗时（毫秒）
+    private double avgMillis;
+
+    //最大耗时（毫秒）
+    private double maxMillis;
+
+    //耗时分位数（毫秒），按直方图桶的上界估算
+    private double p50Millis;
+
+    private double p95Millis;
+
+    private double p99Millis;
+
+    //各直方图桶的调用次数，桶上界依次为0.1、0.25、0.5、1、2.5、5、10、25、50、100、250、500、1000、2500、5000毫秒和无穷大
+    private long[] bucketCounts;
+}
@@ -0,0 +1,268 @@
+package com.sky.order;
+
+import com.sky.properties.OrderDeadlineProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 订单截止时间调度：超时未支付自动取消、派送超时自动完成。
+ * 截止时间以Redis有序集合保存（分值为截止时间毫秒数），重启不会丢失；各节点把即将到期的订单放入本地分层时间轮，
+ * 到期时用Lua脚本从有序集合中认领，只有成功移除成员的节点才会处理该订单，因此每个截止时间只会被一个节点触发。
+ * 认领到的订单按批通过状态机做一次条件更新，期间已支付、已取消的订单不会被修改。
+ * 另有定时任务从有序集合中认领已过期的订单（下单节点宕机等情况），并预取下一段时间内到期的订单放入时间轮
+ */
+@Component
+@Slf4j
+public class OrderDeadlineScheduler {
+
+    //时间轮每层的格数和层数，tick为1秒时可容纳约60小时内的截止时间
+    private static final int WHEEL_SIZE = 60;
+    private static final int WHEEL_LEVELS = 3;
+
+    //认领指定订单：只移除已到期的成员，返回移除成功的订单id
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local claimed = {} " +
+                    "for i = 2, #ARGV do " +
+                    "local score = redis.call('zscore', KEYS[1], ARGV[i]) " +
+                    "if score and tonumber(score) <= tonumber(ARGV[1]) then " +
+                    "redis.call('zrem', KEYS[1], ARGV[i]) " +
+                    "claimed[#claimed + 1] = ARGV[i] end end " +
+                    "return claimed", List.class);
+
+    //认领最多ARGV[2]个已到期的订单
+    private static final RedisScript<List> CLAIM_DUE_SCRIPT = new DefaultRedisScript<>(
+            "local due = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+                    "if #due > 0 then redis.call('zrem', KEYS[1], unpack(due)) end " +
+                    "return due", List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    @Autowired
+    private OrderDeadlineProperties properties;
+
+    private final Map<DeadlineType, TimingWheel<Long>> wheels = new EnumMap<>(DeadlineType.class);
+
+    //已放入时间轮的订单，避免每次预取重复添加
+    private final Map<DeadlineType, Set<Long>> scheduled = new EnumMap<>(DeadlineType.class);
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        long now = System.currentTimeMillis();
+        for (DeadlineType type : DeadlineType.values()) {
+            wheels.put(type, new TimingWheel<>(properties.getTickMillis(), WHEEL_SIZE, WHEEL_LEVELS, now));
+            scheduled.put(type, ConcurrentHashMap.newKeySet());
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("order-deadline-"));
+        //启动时立即补漏和预取，停机期间到期的订单马上处理
+        executor.scheduleWithFixedDelay(this::sweep, 0, properties.getSweepIntervalSeconds(), TimeUnit.SECONDS);
+        executor.scheduleAtFixedRate(this::tick, properties.getTickMillis(), properties.getTickMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 登记未支付订单的超时取消，在下单事务提交后调用
+     * @param orderId
+     * @param orderTime
+     */
+    public void schedulePaymentTimeout(Long orderId, LocalDateTime orderTime) {
+        long deadline = toMillis(orderTime) + TimeUnit.MINUTES.toMillis(properties.getPaymentTimeoutMinutes());
+        register(DeadlineType.PAYMENT, orderId, deadline);
+    }
+
+    /**
+     * 登记派送中订单的自动完成，在派送状态转换成功后调用
+     * @param orderId
+     */
+    public void scheduleAutoComplete(Long orderId) {
+        long deadline = System.currentTimeMillis()
+                + TimeUnit.MINUTES.toMillis(properties.getDeliveryTimeoutMinutes());
+        register(DeadlineType.DELIVERY, orderId, deadline);
+    }
+
+    /**
+     * 写入有序集合后再放入本节点时间轮。写入失败只记录日志，不影响已经提交的订单
+     */
+    private void register(DeadlineType type, Long orderId, long deadline) {
+        try {
+            stringRedisTemplate.opsForZSet().add(keyOf(type), orderId.toString(), deadline);
+        } catch (RuntimeException e) {
+            log.warn("登记订单{}的{}截止时间失败：{}", orderId, type, e.getMessage());
+            return;
+        }
+        addToWheel(type, orderId, deadline);
+    }
+
+    private void addToWheel(DeadlineType type, Long orderId, long deadline) {
+        Set<Long> ids = scheduled.get(type);
+        if (!ids.add(orderId)) {
+            return;
+        }
+        TimingWheel<Long> wheel = wheels.get(type);
+        boolean added;
+        synchronized (wheel) {
+            added = wheel.add(orderId, deadline);
+        }
+        //已到期的交给下次补漏处理，超出时间轮范围的等到期前再预取
+        if (!added) {
+            ids.remove(orderId);
+        }
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            for (DeadlineType type : DeadlineType.values()) {
+                TimingWheel<Long> wheel = wheels.get(type);
+                List<Long> expired;
+                synchronized (wheel) {
+                    expired = wheel.advance(now);
+                }
+                if (expired.isEmpty()) {
+                    continue;
+                }
+                scheduled.get(type).removeAll(expired);
+                for (int from = 0; from < expired.size(); from += properties.getBatchSize()) {
+                    List<Long> batch = expired.subList(from, Math.min(expired.size(), from + properties.getBatchSize()));
+                    fire(type, claim(type, batch, now));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("处理到期订单失败：{}", e.getMessage());
+        }
+    }
+
+    private void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+            for (DeadlineType type : DeadlineType.values()) {
+                List<Long> due;
+                do {
+                    due = claimDue(type, now);
+                    if (!fire(type, due)) {
+                        break;
+                    }
+                } while (due.size() == properties.getBatchSize());
+                prefetch(type, now);
+            }
+        } catch (RuntimeException e) {
+            log.warn("扫描到期订单失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 把下一段时间内到期的订单放入时间轮，包括其他节点登记的订单
+     */
+    private void prefetch(DeadlineType type, long now) {
+        long until = now + TimeUnit.SECONDS.toMillis(properties.getPrefetchSeconds());
+        Set<ZSetOperations.TypedTuple<String>> upcoming =
+                stringRedisTemplate.opsForZSet().rangeByScoreWithScores(keyOf(type), now, until);
+        if (upcoming == null) {
+            return;
+        }
+        for (ZSetOperations.TypedTuple<String> tuple : upcoming) {
+            addToWheel(type, Long.valueOf(tuple.getValue()), tuple.getScore().longValue());
+        }
+    }
+
+    private List<Long> claim(DeadlineType type, List<Long> orderIds, long now) {
+        List<String> args = new ArrayList<>(orderIds.size() + 1);
+        args.add(Long.toString(now));
+        orderIds.forEach(id -> args.add(id.toString()));
+        return toIds(stringRedisTemplate.execute(CLAIM_SCRIPT, Collections.singletonList(keyOf(type)),
+                args.toArray()));
+    }
+
+    private List<Long> claimDue(DeadlineType type, long now) {
+        return toIds(stringRedisTemplate.execute(CLAIM_DUE_SCRIPT, Collections.singletonList(keyOf(type)),
+                Long.toString(now), Integer.toString(properties.getBatchSize())));
+    }
+
+    /**
+     * 通过状态机批量转换认领到的订单，失败时放回有序集合，由下次补漏重试
+     * @return 是否处理成功
+     */
+    private boolean fire(DeadlineType type, List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return true;
+        }
+        try {
+            int applied = orderStateMachine.fireBatch(orderIds, type.event);
+            log.info("{}到期订单{}个，执行{}的{}个", type, orderIds.size(), type.event, applied);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("{}到期订单执行{}失败，放回等待重试：{}", type, type.event, e.getMessage());
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+            long now = System.currentTimeMillis();
+            orderIds.forEach(id -> tuples.add(ZSetOperations.TypedTuple.of(id.toString(), (double) now)));
+            stringRedisTemplate.opsForZSet().add(keyOf(type), tuples);
+            return false;
+        }
+    }
+
+    private String keyOf(DeadlineType type) {
+        return type == DeadlineType.PAYMENT ? properties.getPaymentKey() : properties.getDeliveryKey();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> toIds(List result) {
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return ((List<String>) result).stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private enum DeadlineType {
+
+        //超时未支付
+        PAYMENT(OrderEvent.PAYMENT_TIMEOUT),
+        //派送超时
+        DELIVERY(OrderEvent.COMPLETE);
+
+        private final OrderEvent event;
+
+        DeadlineType(OrderEvent event) {
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 订单状态事件，以及每个事件允许的起始状态和到达的状态
+ */
+public enum OrderEvent {
+
+    //支付成功回调
+    PAY_SUCCESS(Orders.TO_BE_CONFIRMED, Orders.PENDING_PAYMENT),
+    //商家接单
+    CONFIRM(Orders.CONFIRMED, Orders.TO_BE_CONFIRMED),
+    //商家拒单
+    REJECT(Orders.CANCELLED, Orders.TO_BE_CONFIRMED),
+    //用户取消，商家接单后不能再由用户取消
+    USER_CANCEL(Orders.CANCELLED, Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED),
+    //商家取消
+    ADMIN_CANCEL(Orders.CANCELLED, Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, Orders.CONFIRMED,
+            Orders.DELIVERY_IN_PROGRESS),
+    //超时未支付自动取消
+    PAYMENT_TIMEOUT(Orders.CANCELLED, Orders.PENDING_PAYMENT),
+    //派送
+    DELIVER(Orders.DELIVERY_IN_PROGRESS, Orders.CONFIRMED),
+    //完成，包括派送超时自动完成
+    COMPLETE(Orders.COMPLETED, Orders.DELIVERY_IN_PROGRESS);
+
+    private final Integer targetStatus;
+
+    private final Set<Integer> sourceStatuses;
+
+    OrderEvent(Integer targetStatus, Integer... sourceStatuses) {
+        this.targetStatus = targetStatus;
+        this.sourceStatuses = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(sourceStatuses)));
+    }
+
+    public Integer getTargetStatus() {
+        return targetStatus;
+    }
+
+    public Set<Integer> getSourceStatuses() {
+        return sourceStatuses;
+    }
+
+    /**
+     * 当前状态下是否允许该事件
+     * @param status
+     * @return
+     */
+    public boolean canFireFrom(Integer status) {
+        return sourceStatuses.contains(status);
+    }
+}
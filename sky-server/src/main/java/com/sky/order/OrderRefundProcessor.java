@@ -0,0 +1,142 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderRefundProperties;
+import com.sky.utils.WeChatPayUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已支付订单取消、拒单后的退款。
+ * 退款不在订单事务中进行：取消前先在Redis有序集合中登记待退款，状态转换提交后再调用微信支付退款，成功后移除登记。
+ * 退款失败或进程在提交后退出时，登记仍然保留，由定时任务对超过宽限时间的登记重试；退款单号使用订单号，
+ * 重复申请时微信支付按同一笔退款处理。状态转换没有发生的登记（订单不是已取消且退款状态）直接移除
+ */
+@Component
+@Slf4j
+public class OrderRefundProcessor {
+
+    //认领最多ARGV[3]个登记时间不晚于ARGV[1]的订单，并把分值改为ARGV[2]，其他节点在宽限时间内不会重复处理
+    private static final RedisScript<List> CLAIM_DUE_SCRIPT = new DefaultRedisScript<>(
+            "local due = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[3]) " +
+                    "for i = 1, #due do redis.call('zadd', KEYS[1], ARGV[2], due[i]) end " +
+                    "return due", List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private WeChatPayUtil weChatPayUtil;
+    @Autowired
+    private OrderRefundProperties properties;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("order-refund-"));
+        executor.scheduleWithFixedDelay(this::retry, properties.getRetryIntervalSeconds(),
+                properties.getRetryIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 登记待退款，在触发取消、拒单事件之前调用
+     * @param orderId
+     */
+    public void markPending(Long orderId) {
+        stringRedisTemplate.opsForZSet().add(properties.getPendingKey(), orderId.toString(),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * 移除登记，状态转换成功且不需要退款、或没有生效时调用
+     * @param orderId
+     */
+    public void clear(Long orderId) {
+        try {
+            stringRedisTemplate.opsForZSet().remove(properties.getPendingKey(), orderId.toString());
+        } catch (RuntimeException e) {
+            //残留的登记由补偿任务检查订单状态后移除
+            log.warn("移除订单{}的待退款登记失败：{}", orderId, e.getMessage());
+        }
+    }
+
+    /**
+     * 对已提交为退款状态的订单申请全额退款，失败时保留登记等待重试
+     * @param orderId
+     * @return 是否已申请成功
+     */
+    public boolean refund(Long orderId) {
+        Orders orders = orderMapper.getById(orderId);
+        if (orders == null || !Orders.CANCELLED.equals(orders.getStatus())
+                || !Orders.REFUND.equals(orders.getPayStatus())) {
+            clear(orderId);
+            return true;
+        }
+        try {
+            String refundResult = weChatPayUtil.refund(orders.getNumber(), orders.getNumber(),
+                    orders.getAmount(), orders.getAmount());
+            log.info("订单{}申请退款：{}", orders.getNumber(), refundResult);
+        } catch (Exception e) {
+            log.warn("订单{}申请退款失败，等待重试：{}", orders.getNumber(), e.getMessage());
+            try {
+                //并发的重复取消请求可能已移除登记，这里重新登记
+                markPending(orderId);
+            } catch (RuntimeException re) {
+                log.error("订单{}重新登记待退款失败", orders.getNumber(), re);
+            }
+            return false;
+        }
+        clear(orderId);
+        return true;
+    }
+
+    private void retry() {
+        try {
+            long now = System.currentTimeMillis();
+            long before = now - TimeUnit.SECONDS.toMillis(properties.getGraceSeconds());
+            List<String> due;
+            do {
+                due = claimDue(before, now);
+                for (String orderId : due) {
+                    refund(Long.valueOf(orderId));
+                }
+            } while (due.size() == properties.getBatchSize());
+        } catch (RuntimeException e) {
+            log.warn("重试待退款订单失败：{}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> claimDue(long before, long now) {
+        List<String> due = stringRedisTemplate.execute(CLAIM_DUE_SCRIPT,
+                Collections.singletonList(properties.getPendingKey()),
+                Long.toString(before), Long.toString(now), Integer.toString(properties.getBatchSize()));
+        return due == null ? Collections.<String>emptyList() : due;
+    }
+}
@@ -0,0 +1,138 @@
+package com.sky.order;
+
+import com.sky.constant.MessageConstant;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.sky.utils.BatchUtil;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 订单状态机。
+ * 每次转换先读出当前状态，检查事件是否允许，再执行 update ... where id = ? and status = 当前状态，不使用select for update。
+ * 订单状态只会向前推进，不会回到之前的状态，因此以状态本身作为乐观锁即可，不需要额外的版本号列。
+ * 条件更新没有命中说明状态已被其他请求改变，重新读取后按新状态判断，仍然允许时重试，否则返回REJECTED。
+ * 状态转换总是挂起调用方的事务、逐条语句自动提交：在可重复读的事务中重新读取只能读到同一快照，重试永远不会命中
+ */
+@Component
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Slf4j
+public class OrderStateMachine {
+
+    //每次重试都意味着状态又向前推进了一步，而一个事件的起始状态最多相差三步
+    private static final int MAX_ATTEMPTS = 4;
+
+    //可以批量触发的事件：只有一个起始状态，且字段修改不依赖订单的当前数据（如是否已支付）
+    private static final Set<OrderEvent> BATCH_EVENTS = EnumSet.of(OrderEvent.PAYMENT_TIMEOUT, OrderEvent.COMPLETE);
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    public TransitionResult fire(Long orderId, OrderEvent event) {
+        return fire(orderId, event, null);
+    }
+
+    /**
+     * 触发状态事件
+     * @param orderId
+     * @param event
+     * @param reason 取消或拒单原因，为null时取消使用默认原因
+     * @return
+     */
+    public TransitionResult fire(Long orderId, OrderEvent event, String reason) {
+        Orders current;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            current = orderMapper.getStatusById(orderId);
+            if (current == null) {
+                return TransitionResult.notFound(orderId, event);
+            }
+            if (!event.canFireFrom(current.getStatus())) {
+                return TransitionResult.rejected(orderId, event, current.getStatus());
+            }
+            Orders change = changeFor(current, event, reason);
+            if (orderMapper.updateStatus(change, current.getStatus()) == 1) {
+                return TransitionResult.applied(orderId, event, current.getStatus(),
+                        Orders.REFUND.equals(change.getPayStatus()));
+            }
+            log.debug("订单{}执行{}时状态已变化，重新读取", orderId, event);
+        }
+        current = orderMapper.getStatusById(orderId);
+        return TransitionResult.rejected(orderId, event, current == null ? null : current.getStatus());
+    }
+
+    /**
+     * 批量触发状态事件，用于超时取消、自动完成等由系统发起的事件。
+     * 每批只执行一条 update ... where id in (...) and status = 起始状态，状态已经变化的订单不会被修改
+     * @param orderIds
+     * @param event
+     * @return 实际转换的订单数
+     */
+    public int fireBatch(List<Long> orderIds, OrderEvent event) {
+        if (!BATCH_EVENTS.contains(event)) {
+            throw new IllegalArgumentException("事件不支持批量触发：" + event);
+        }
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        Integer fromStatus = event.getSourceStatuses().iterator().next();
+        Orders change = changeFor(new Orders(), event, null);
+        int applied = 0;
+        for (List<Long> chunk : BatchUtil.partition(orderIds, BatchUtil.MAX_IN_LIST_SIZE)) {
+            applied += orderMapper.updateStatusBatch(chunk, change, fromStatus);
+        }
+        return applied;
+    }
+
+    /**
+     * 事件对应的字段修改，金额等其他字段不变
+     */
+    private static Orders changeFor(Orders current, OrderEvent event, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        Orders change = Orders.builder()
+                .id(current.getId())
+                .status(event.getTargetStatus())
+                .build();
+        switch (event) {
+            case PAY_SUCCESS:
+                change.setPayStatus(Orders.PAID);
+                change.setCheckoutTime(now);
+                break;
+            case REJECT:
+                change.setRejectionReason(reason);
+                change.setCancelTime(now);
+                refundIfPaid(current, change);
+                break;
+            case USER_CANCEL:
+            case ADMIN_CANCEL:
+                change.setCancelReason(reason == null ? MessageConstant.ORDER_CANCELLED : reason);
+                change.setCancelTime(now);
+                refundIfPaid(current, change);
+                break;
+            case PAYMENT_TIMEOUT:
+                change.setCancelReason(MessageConstant.ORDER_PAYMENT_TIMEOUT);
+                change.setCancelTime(now);
+                break;
+            case COMPLETE:
+                change.setDeliveryTime(now);
+                break;
+            default:
+                break;
+        }
+        return change;
+    }
+
+    private static void refundIfPaid(Orders current, Orders change) {
+        if (Orders.PAID.equals(current.getPayStatus())) {
+            change.setPayStatus(Orders.REFUND);
+        }
+    }
+}
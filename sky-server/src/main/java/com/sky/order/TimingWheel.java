@@ -0,0 +1,125 @@
+package com.sky.order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮。
+ * 第0层每格一个tick，第n层每格是第n-1层转一圈的时长；截止时间落在哪一层取决于距离当前时间有多远，
+ * 高层的格子到期时把其中的任务重新放入低层，最终在第0层到期。添加和推进一格的开销与任务总数无关。
+ * 非线程安全，由调用方加锁
+ */
+class TimingWheel<T> {
+
+    private final long tickMillis;
+
+    private final int wheelSize;
+
+    //每层每格的任务
+    private final List<Entry<T>>[][] buckets;
+
+    //每层一格包含的tick数
+    private final long[] ticksPerSlot;
+
+    //当前时间（以tick计）
+    private long currentTick;
+
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.buckets = new List[levels][wheelSize];
+        this.ticksPerSlot = new long[levels];
+        long ticks = 1;
+        for (int level = 0; level < levels; level++) {
+            ticksPerSlot[level] = ticks;
+            ticks *= wheelSize;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[level][slot] = new ArrayList<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 添加任务
+     * @param item
+     * @param deadlineMillis
+     * @return 已到期或超出时间轮范围时返回false，任务不会被加入
+     */
+    boolean add(T item, long deadlineMillis) {
+        long deadlineTick = deadlineMillis / tickMillis;
+        if (deadlineTick <= currentTick || !place(new Entry<>(item, deadlineTick))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * 推进到指定时间
+     * @param nowMillis
+     * @return 期间到期的任务
+     */
+    List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            //高层格子到期时先降级，其中已到期的任务会直接进入当前的第0层格子
+            for (int level = buckets.length - 1; level > 0; level--) {
+                if (currentTick % ticksPerSlot[level] == 0) {
+                    cascade(level, expired);
+                }
+            }
+            cascade(0, expired);
+        }
+        return expired;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(int level, List<T> expired) {
+        int slot = (int) ((currentTick / ticksPerSlot[level]) % wheelSize);
+        List<Entry<T>> entries = buckets[level][slot];
+        if (entries.isEmpty()) {
+            return;
+        }
+        buckets[level][slot] = new ArrayList<>();
+        for (Entry<T> entry : entries) {
+            //同一格中可能有下一圈才到期的任务，重新放置即可
+            if (entry.deadlineTick <= currentTick || !place(entry)) {
+                expired.add(entry.item);
+                size--;
+            }
+        }
+    }
+
+    private boolean place(Entry<T> entry) {
+        long distance = entry.deadlineTick - currentTick;
+        for (int level = 0; level < buckets.length; level++) {
+            if (distance < ticksPerSlot[level] * wheelSize) {
+                int slot = (int) ((entry.deadlineTick / ticksPerSlot[level]) % wheelSize);
+                buckets[level][slot].add(entry);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Entry<T> {
+
+        private final T item;
+
+        private final long deadlineTick;
+
+        Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.sky.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 一次状态转换的结果。并发竞争失败不抛异常，由调用方根据结果决定如何响应
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class TransitionResult {
+
+    public enum Outcome {
+        //转换成功
+        APPLIED,
+        //订单不存在
+        NOT_FOUND,
+        //当前状态不允许该事件，包括被其他请求抢先改变状态的情况
+        REJECTED
+    }
+
+    private final Outcome outcome;
+
+    private final Long orderId;
+
+    private final OrderEvent event;
+
+    //转换前的状态；NOT_FOUND时为null
+    private final Integer fromStatus;
+
+    //转换后或读到的最新状态；NOT_FOUND时为null
+    private final Integer currentStatus;
+
+    //转换时把已支付的订单标记为退款，调用方需要向支付平台发起退款
+    private final boolean refundRequired;
+
+    public boolean isApplied() {
+        return outcome == Outcome.APPLIED;
+    }
+
+    static TransitionResult applied(Long orderId, OrderEvent event, Integer fromStatus, boolean refundRequired) {
+        return new TransitionResult(Outcome.APPLIED, orderId, event, fromStatus, event.getTargetStatus(),
+                refundRequired);
+    }
+
+    static TransitionResult notFound(Long orderId, OrderEvent event) {
+        return new TransitionResult(Outcome.NOT_FOUND, orderId, event, null, null, false);
+    }
+
+    static TransitionResult rejected(Long orderId, OrderEvent event, Integer currentStatus) {
+        return new TransitionResult(Outcome.REJECTED, orderId, event, currentStatus, currentStatus, false);
+    }
+}
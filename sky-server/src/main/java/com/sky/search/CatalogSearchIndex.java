@@ -0,0 +1,265 @@
+package com.sky.search;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.properties.SearchProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 菜品、套餐名称的进程内搜索索引。
+ * 启动时从数据库全量加载，之后由管理端写操作在事务提交后增量更新，并通过Redis发布订阅同步到其他节点。
+ * 定时比较数据库的指纹（行数和最大修改时间）与上次加载时是否一致，不一致时全量重建，兜底同步消息丢失的情况
+ */
+@Component
+@Slf4j
+public class CatalogSearchIndex implements ApplicationRunner {
+
+    public static final String DISH = "dish";
+    public static final String SETMEAL = "setmeal";
+
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private SearchProperties properties;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final NameIndex dishIndex = new NameIndex();
+
+    private final NameIndex setmealIndex = new NameIndex();
+
+    //全量加载完成前分页查询仍使用like
+    private volatile boolean ready;
+
+    //上次全量加载时数据库的指纹
+    private volatile String dishFingerprint;
+    private volatile String setmealFingerprint;
+
+    private ScheduledExecutorService executor;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reloadLocal();
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("search-index-verify-"));
+        executor.scheduleWithFixedDelay(this::verify, properties.getVerifyIntervalSeconds(),
+                properties.getVerifyIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 从数据库全量重建本节点的索引，并通知其他节点也重建。用于批量导入等一次改动大量数据的场景
+     */
+    public void reload() {
+        reloadLocal();
+        publish(new SearchIndexMessage(nodeId, null, null, null));
+    }
+
+    /**
+     * 从数据库全量重建本节点的索引
+     */
+    void reloadLocal() {
+        long start = System.nanoTime();
+        try {
+            //先取指纹再读数据，读取期间发生的修改会让下次检查发现指纹变化
+            String dishVersion = dishMapper.getFingerprint();
+            String setmealVersion = setmealMapper.getFingerprint();
+            Map<Long, String> dishNames = new HashMap<>();
+            for (Dish dish : dishMapper.listIdAndName()) {
+                dishNames.put(dish.getId(), dish.getName());
+            }
+            dishIndex.rebuild(dishNames);
+
+            Map<Long, String> setmealNames = new HashMap<>();
+            for (Setmeal setmeal : setmealMapper.listIdAndName()) {
+                setmealNames.put(setmeal.getId(), setmeal.getName());
+            }
+            setmealIndex.rebuild(setmealNames);
+            dishFingerprint = dishVersion;
+            setmealFingerprint = setmealVersion;
+        } catch (RuntimeException e) {
+            log.warn("加载名称索引失败，名称查询继续使用like：{}", e.getMessage());
+            return;
+        }
+        ready = true;
+        log.info("名称索引加载完成，菜品：{}，套餐：{}，耗时：{}ms", dishIndex.size(), setmealIndex.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * 数据库指纹与上次加载时不一致时全量重建本节点索引
+     */
+    private void verify() {
+        try {
+            if (!ready || !Objects.equals(dishFingerprint, dishMapper.getFingerprint())
+                    || !Objects.equals(setmealFingerprint, setmealMapper.getFingerprint())) {
+                log.info("名称索引与数据库不一致，重新加载");
+                reloadLocal();
+            }
+        } catch (RuntimeException e) {
+            log.warn("检查名称索引失败：{}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 搜索名称或拼音首字母包含关键字的菜品
+     * @param keyword
+     * @param limit
+     * @return 菜品id
+     */
+    public List<Long> searchDish(String keyword, int limit) {
+        return dishIndex.search(keyword, limit);
+    }
+
+    /**
+     * 搜索名称或拼音首字母包含关键字的套餐
+     * @param keyword
+     * @param limit
+     * @return 套餐id
+     */
+    public List<Long> searchSetmeal(String keyword, int limit) {
+        return setmealIndex.search(keyword, limit);
+    }
+
+    public String getDishName(Long id) {
+        return dishIndex.getName(id);
+    }
+
+    public String getSetmealName(Long id) {
+        return setmealIndex.getName(id);
+    }
+
+    /**
+     * 分页查询按名称过滤时使用的菜品id
+     * @param name
+     * @return 返回null时表示仍使用like过滤：没有名称条件、索引未就绪或命中数量过多
+     */
+    public List<Long> matchDishIds(String name) {
+        return matchIds(dishIndex, name);
+    }
+
+    /**
+     * 分页查询按名称过滤时使用的套餐id
+     * @param name
+     * @return 返回null时表示仍使用like过滤：没有名称条件、索引未就绪或命中数量过多
+     */
+    public List<Long> matchSetmealIds(String name) {
+        return matchIds(setmealIndex, name);
+    }
+
+    public void putDish(Long id, String name) {
+        if (name != null) {
+            change(DISH, id, name);
+        }
+    }
+
+    public void removeDishes(List<Long> ids) {
+        ids.forEach(id -> change(DISH, id, null));
+    }
+
+    public void putSetmeal(Long id, String name) {
+        if (name != null) {
+            change(SETMEAL, id, name);
+        }
+    }
+
+    public void removeSetmeals(List<Long> ids) {
+        ids.forEach(id -> change(SETMEAL, id, null));
+    }
+
+    /**
+     * 只更新本节点的索引
+     * @param index
+     * @param id
+     * @param name 为null时删除
+     */
+    void applyLocal(String index, Long id, String name) {
+        NameIndex nameIndex = DISH.equals(index) ? dishIndex : SETMEAL.equals(index) ? setmealIndex : null;
+        if (nameIndex == null) {
+            return;
+        }
+        if (name == null) {
+            nameIndex.remove(id);
+        } else {
+            nameIndex.put(id, name);
+        }
+    }
+
+    private List<Long> matchIds(NameIndex nameIndex, String name) {
+        if (!ready || name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        return nameIndex.match(name, properties.getMaxIdFilterSize());
+    }
+
+    /**
+     * 事务中调用时在提交后更新索引，避免回滚后索引与数据库不一致
+     */
+    private void change(String index, Long id, String name) {
+        if (id == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyAndPublish(index, id, name);
+                }
+            });
+        } else {
+            applyAndPublish(index, id, name);
+        }
+    }
+
+    private void applyAndPublish(String index, Long id, String name) {
+        applyLocal(index, id, name);
+        publish(new SearchIndexMessage(nodeId, index, id, name));
+    }
+
+    private void publish(SearchIndexMessage message) {
+        try {
+            stringRedisTemplate.convertAndSend(properties.getIndexChannel(), JSON.toJSONString(message));
+        } catch (RuntimeException e) {
+            log.warn("发布名称索引消息失败：{}，{}", message, e.getMessage());
+        }
+    }
+}
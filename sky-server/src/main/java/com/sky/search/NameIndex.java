@@ -0,0 +1,246 @@
+package com.sky.search;
+
+import com.sky.utils.PinyinUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 名称倒排索引。
+ * 名称和名称拼音首字母都按单字和相邻两字切分建立倒排表，查询时取关键字各个二元组倒排表的交集，
+ * 再用包含判断过滤掉误命中，结果与 like '%关键字%'（或首字母包含关键字）一致。
+ * 全量重建时在新的索引上构建完成后一次性替换，查询不会看到空的或只建了一半的索引
+ */
+public class NameIndex {
+
+    private volatile Index index = new Index();
+
+    /**
+     * 新增或更新名称
+     * @param id
+     * @param name
+     */
+    public synchronized void put(Long id, String name) {
+        index.put(id, name);
+    }
+
+    /**
+     * 删除名称
+     * @param id
+     */
+    public synchronized void remove(Long id) {
+        index.remove(id);
+    }
+
+    /**
+     * 用全量数据重建索引
+     * @param names id到名称的映射
+     */
+    public synchronized void rebuild(Map<Long, String> names) {
+        Index fresh = new Index();
+        names.forEach(fresh::put);
+        index = fresh;
+    }
+
+    public String getName(Long id) {
+        Entry entry = index.entries.get(id);
+        return entry == null ? null : entry.name;
+    }
+
+    /**
+     * 查询名称或拼音首字母包含关键字的id，前缀匹配的排在前面，其次是名称较短的
+     * @param keyword
+     * @param limit 最多返回的个数
+     * @return
+     */
+    public List<Long> search(String keyword, int limit) {
+        String query = normalize(keyword);
+        if (query.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Index current = index;
+        List<Entry> matched = new ArrayList<>();
+        for (Long id : current.candidates(query)) {
+            Entry entry = current.entries.get(id);
+            if (entry != null && entry.matches(query)) {
+                matched.add(entry);
+            }
+        }
+
+        //排序键放在long的高32位（是否前缀匹配、名称长度），低32位是下标，按基本类型排序避免装箱比较
+        long[] keys = new long[matched.size()];
+        for (int i = 0; i < keys.length; i++) {
+            Entry entry = matched.get(i);
+            long rank = (entry.startsWith(query) ? 0L : 1L << 30) | Math.min(entry.name.length(), (1 << 30) - 1);
+            keys[i] = rank << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        int size = Math.min(limit, keys.length);
+        List<Long> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(matched.get((int) keys[i]).id);
+        }
+        return result;
+    }
+
+    /**
+     * 查询名称或拼音首字母包含关键字的id，不排序
+     * @param keyword
+     * @param maxSize 命中超过该数量时停止查找
+     * @return 命中超过maxSize时返回null
+     */
+    public List<Long> match(String keyword, int maxSize) {
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Index current = index;
+        List<Long> result = new ArrayList<>();
+        for (Long id : current.candidates(query)) {
+            Entry entry = current.entries.get(id);
+            if (entry != null && entry.matches(query)) {
+                if (result.size() == maxSize) {
+                    return null;
+                }
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return index.entries.size();
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase();
+    }
+
+    /**
+     * 关键字只有一个字时查单字倒排表，否则查所有相邻两字的倒排表
+     */
+    private static Set<String> queryTokens(String query) {
+        Set<String> tokens = new HashSet<>();
+        if (query.length() == 1) {
+            tokens.add(query);
+            return tokens;
+        }
+        for (int i = 0; i + 1 < query.length(); i++) {
+            tokens.add(query.substring(i, i + 2));
+        }
+        return tokens;
+    }
+
+    private static void addGrams(Set<String> tokens, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            tokens.add(text.substring(i, i + 1));
+            if (i + 1 < text.length()) {
+                tokens.add(text.substring(i, i + 2));
+            }
+        }
+    }
+
+    /**
+     * 倒排表和名称，增量修改在原对象上进行，全量重建时整体替换
+     */
+    private static class Index {
+
+        private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+        void put(Long id, String name) {
+            if (id == null || name == null) {
+                return;
+            }
+            remove(id);
+            Entry entry = new Entry(id, name);
+            entries.put(id, entry);
+            for (String token : entry.tokens()) {
+                postings.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        void remove(Long id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            for (String token : entry.tokens()) {
+                Set<Long> ids = postings.get(token);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(token);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 取关键字各个分词倒排表的交集，从最短的倒排表开始
+         */
+        Set<Long> candidates(String query) {
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String token : queryTokens(query)) {
+                Set<Long> ids = postings.get(token);
+                if (ids == null) {
+                    return Collections.emptySet();
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            if (lists.size() == 1) {
+                return lists.get(0);
+            }
+
+            Set<Long> candidates = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) {
+                candidates.retainAll(lists.get(i));
+            }
+            return candidates;
+        }
+    }
+
+    private static class Entry {
+
+        private final Long id;
+
+        private final String name;
+
+        private final String lowerName;
+
+        private final String initials;
+
+        Entry(Long id, String name) {
+            this.id = id;
+            this.name = name;
+            this.lowerName = normalize(name);
+            this.initials = PinyinUtil.initials(name);
+        }
+
+        Set<String> tokens() {
+            Set<String> tokens = new HashSet<>();
+            addGrams(tokens, lowerName);
+            addGrams(tokens, initials);
+            return tokens;
+        }
+
+        boolean matches(String query) {
+            return lowerName.contains(query) || initials.contains(query);
+        }
+
+        boolean startsWith(String query) {
+            return lowerName.startsWith(query) || initials.startsWith(query);
+        }
+    }
+}
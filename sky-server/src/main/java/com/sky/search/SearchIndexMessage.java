@@ -0,0 +1,29 @@
+package com.sky.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 跨节点名称索引变化消息，通过Redis发布订阅广播给所有节点
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchIndexMessage implements Serializable {
+
+    //发出消息的节点id，节点收到自己发出的消息时直接忽略
+    private String nodeId;
+
+    //索引名称：dish、setmeal
+    private String index;
+
+    //菜品或套餐id，为null时表示全量重建索引
+    private Long id;
+
+    //新的名称，为null时表示删除
+    private String name;
+
+}
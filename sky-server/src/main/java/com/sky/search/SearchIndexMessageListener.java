@@ -0,0 +1,43 @@
+package com.sky.search;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 监听其他节点发出的名称索引变化消息，更新本节点的索引
+ */
+@Slf4j
+public class SearchIndexMessageListener implements MessageListener {
+
+    private final CatalogSearchIndex searchIndex;
+
+    public SearchIndexMessageListener(CatalogSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        SearchIndexMessage indexMessage;
+        try {
+            indexMessage = JSON.parseObject(body, SearchIndexMessage.class);
+        } catch (Exception e) {
+            log.warn("无法解析名称索引消息：{}", body);
+            return;
+        }
+        if (indexMessage == null || searchIndex.getNodeId().equals(indexMessage.getNodeId())) {
+            return;
+        }
+        log.debug("收到名称索引消息：{}", indexMessage);
+        //没有id的消息表示全量重建
+        if (indexMessage.getId() == null) {
+            searchIndex.reloadLocal();
+        } else {
+            searchIndex.applyLocal(indexMessage.getIndex(), indexMessage.getId(), indexMessage.getName());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.sky.service;
+
+import com.sky.vo.ImportResultVO;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface CatalogImportService {
+
+    /**
+     * 从xlsx文件批量导入菜品（含口味）和套餐。
+     * 读取名为“菜品”和“套餐”的工作表，第一行为表头：
+     * 菜品：名称、分类、价格、图片、描述、状态、口味（如 辣度:不辣,微辣;甜度:无糖,少糖）
+     * 套餐：名称、分类、价格、图片、描述、状态、菜品（如 宫保鸡丁*1;米饭*2）
+     * 套餐引用的菜品需已存在或位于前面的“菜品”工作表中。校验失败的行跳过，其余行分批写入
+     * @param file
+     * @return
+     */
+    ImportResultVO importCatalog(MultipartFile file);
+}
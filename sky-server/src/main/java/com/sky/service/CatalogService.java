@@ -0,0 +1,56 @@
+package com.sky.service;
+
+/**
+ * 用户端商品目录查询，结果以序列化好的响应体字节缓存
+ */
+public interface CatalogService {
+
+    /**
+     * 根据分类id查询起售中的菜品及口味
+     * @param categoryId
+     * @return Result包装后的JSON字节
+     */
+    byte[] listDish(Long categoryId);
+
+    /**
+     * 根据分类id查询起售中的套餐
+     * @param categoryId
+     * @return Result包装后的JSON字节
+     */
+    byte[] listSetmeal(Long categoryId);
+
+    /**
+     * 根据套餐id查询包含的菜品列表
+     * @param setmealId
+     * @return Result包装后的JSON字节
+     */
+    byte[] listSetmealDish(Long setmealId);
+
+    /**
+     * 根据类型查询启用的分类
+     * @param type 为null时查询全部类型
+     * @return Result包装后的JSON字节
+     */
+    byte[] listCategory(Integer type);
+
+    /**
+     * 重新查询分类下的菜品并覆盖缓存，用于缓存预热
+     * @param categoryId
+     * @return Result包装后的JSON字节
+     */
+    byte[] refreshDish(Long categoryId);
+
+    /**
+     * 重新查询分类下的套餐并覆盖缓存，用于缓存预热
+     * @param categoryId
+     * @return Result包装后的JSON字节
+     */
+    byte[] refreshSetmeal(Long categoryId);
+
+    /**
+     * 重新查询分类列表并覆盖缓存，用于缓存预热
+     * @param type 为null时查询全部类型
+     * @return Result包装后的JSON字节
+     */
+    byte[] refreshCategory(Integer type);
+}
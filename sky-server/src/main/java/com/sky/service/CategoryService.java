@@ -4,6 +4,7 @@ import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
 import com.sky.entity.Category;
 import com.sky.result.PageResult;
+import com.sky.result.SeekPageResult;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -24,6 +25,13 @@ public interface CategoryService {
      */
     PageResult pageQuery(CategoryPageQueryDTO categoryPageQueryDTO);
 
+    /**
+     * 分类游标分页查询
+     * @param categoryPageQueryDTO
+     * @return
+     */
+    SeekPageResult seekQuery(CategoryPageQueryDTO categoryPageQueryDTO);
+
     /**
      * 根据id删除分类
      * @param id
@@ -4,6 +4,7 @@ import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.result.PageResult;
+import com.sky.result.SeekPageResult;
 import com.sky.vo.DishVO;
 import org.springframework.stereotype.Service;
 
@@ -15,6 +16,13 @@ public interface DishService {
 
     PageResult dishPageQuery(DishPageQueryDTO dishPageQueryDTO);
 
+    /**
+     * 菜品游标分页查询
+     * @param dishPageQueryDTO
+     * @return
+     */
+    SeekPageResult dishSeekQuery(DishPageQueryDTO dishPageQueryDTO);
+
     void deleteDishByIds(List<Long> ids);
 
     DishVO getById(Long id);
@@ -5,6 +5,7 @@ import com.sky.dto.EmployeeLoginDTO;
 import com.sky.dto.EmployeePageQueryDTO;
 import com.sky.entity.Employee;
 import com.sky.result.PageResult;
+import com.sky.result.SeekPageResult;
 import org.springframework.stereotype.Service;
 
 
@@ -21,6 +22,13 @@ public interface EmployeeService {
 
     PageResult pageQuery(EmployeePageQueryDTO employeePageQueryDTO);
 
+    /**
+     * 员工游标分页查询
+     * @param employeePageQueryDTO
+     * @return
+     */
+    SeekPageResult seekQuery(EmployeePageQueryDTO employeePageQueryDTO);
+
     void updateStatus(Long id, Integer status);
 
     Employee getById(Long id);
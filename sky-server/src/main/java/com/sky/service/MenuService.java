@@ -0,0 +1,17 @@
+package com.sky.service;
+
+import com.sky.cache.MenuSnapshot;
+
+public interface MenuService {
+
+    /**
+     * 获取当前版本的整份菜单快照，版本变化后才重新生成
+     * @return
+     */
+    MenuSnapshot getSnapshot();
+
+    /**
+     * 递增菜单版本号，由商品目录缓存失效时在事务提交后调用
+     */
+    void bumpVersion();
+}
@@ -0,0 +1,77 @@
+package com.sky.service;
+
+import com.sky.dto.OrdersCancelDTO;
+import com.sky.dto.OrdersConfirmDTO;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.dto.OrdersPaymentDTO;
+import com.sky.dto.OrdersRejectionDTO;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.result.SeekPageResult;
+import com.sky.vo.OrderPaymentVO;
+import com.sky.vo.OrderSubmitVO;
+
+public interface OrderService {
+
+    /**
+     * 用户下单：按购物车生成订单和订单明细，并清空已下单的购物车商品
+     * @param ordersSubmitDTO
+     * @return
+     */
+    OrderSubmitVO submit(OrdersSubmitDTO ordersSubmitDTO);
+
+    /**
+     * 订单支付：调用微信支付下单，返回小程序调起支付所需的参数
+     * @param ordersPaymentDTO
+     * @return
+     */
+    OrderPaymentVO payment(OrdersPaymentDTO ordersPaymentDTO) throws Exception;
+
+    /**
+     * 当前用户的历史订单，游标分页，每个订单带明细和菜品摘要
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    SeekPageResult historyOrders(OrdersPageQueryDTO ordersPageQueryDTO);
+
+    /**
+     * 用户催单，推送给在线的管理端
+     * @param id
+     */
+    void reminder(Long id);
+
+    /**
+     * 用户取消自己的订单，商家接单后不能取消
+     * @param id
+     */
+    void userCancel(Long id);
+
+    /**
+     * 商家接单
+     * @param ordersConfirmDTO
+     */
+    void confirm(OrdersConfirmDTO ordersConfirmDTO);
+
+    /**
+     * 商家拒单，已支付的订单标记为退款
+     * @param ordersRejectionDTO
+     */
+    void rejection(OrdersRejectionDTO ordersRejectionDTO);
+
+    /**
+     * 商家取消订单，已支付的订单标记为退款
+     * @param ordersCancelDTO
+     */
+    void cancel(OrdersCancelDTO ordersCancelDTO);
+
+    /**
+     * 派送订单
+     * @param id
+     */
+    void delivery(Long id);
+
+    /**
+     * 完成订单
+     * @param id
+     */
+    void complete(Long id);
+}
@@ -0,0 +1,14 @@
+package com.sky.service;
+
+import com.sky.vo.SearchResultVO;
+
+public interface SearchService {
+
+    /**
+     * 按名称或拼音首字母搜索菜品和套餐
+     * @param keyword
+     * @param limit 每类最多返回的个数
+     * @return
+     */
+    SearchResultVO search(String keyword, Integer limit);
+}
@@ -4,6 +4,7 @@ import com.sky.dto.SetmealDTO;
 import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.entity.Setmeal;
 import com.sky.result.PageResult;
+import com.sky.result.SeekPageResult;
 import com.sky.vo.DishItemVO;
 import com.sky.vo.SetmealVO;
 
@@ -23,6 +24,13 @@ public interface SetmealService {
      */
     PageResult pageQuery(SetmealPageQueryDTO setmealPageQueryDTO);
 
+    /**
+     * 套餐游标分页查询
+     * @param setmealPageQueryDTO
+     * @return
+     */
+    SeekPageResult seekQuery(SetmealPageQueryDTO setmealPageQueryDTO);
+
     /**
      * 批量删除套餐
      * @param ids
@@ -0,0 +1,38 @@
+package com.sky.service;
+
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.ShoppingCart;
+
+import java.util.List;
+
+public interface ShoppingCartService {
+
+    /**
+     * 商品加入购物车，已存在时数量加一
+     * @param shoppingCartDTO
+     */
+    void add(ShoppingCartDTO shoppingCartDTO);
+
+    /**
+     * 商品数量减一，减到0时从购物车移除
+     * @param shoppingCartDTO
+     */
+    void sub(ShoppingCartDTO shoppingCartDTO);
+
+    /**
+     * 查询当前用户的购物车
+     * @return
+     */
+    List<ShoppingCart> list();
+
+    /**
+     * 清空当前用户的购物车
+     */
+    void clean();
+
+    /**
+     * 签发下单、支付使用的请求令牌
+     * @return
+     */
+    String issueToken();
+}
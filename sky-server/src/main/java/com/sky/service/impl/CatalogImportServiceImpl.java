@@ -0,0 +1,533 @@
+package com.sky.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.cache.CatalogCacheInvalidator;
+import com.sky.cache.CatalogChange;
+import com.sky.constant.MessageConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.context.BaseContext;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.entity.Setmeal;
+import com.sky.entity.SetmealDish;
+import com.sky.excel.XlsxRowReader;
+import com.sky.exception.ImportFailedException;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealDishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.search.CatalogSearchIndex;
+import com.sky.service.CatalogImportService;
+import com.sky.utils.BatchUtil;
+import com.sky.vo.ImportResultVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class CatalogImportServiceImpl implements CatalogImportService {
+
+    private static final String DISH_SHEET = "菜品";
+    private static final String SETMEAL_SHEET = "套餐";
+
+    /**
+     * 分类类型：1菜品分类 2套餐分类
+     */
+    private static final int DISH_CATEGORY = 1;
+    private static final int SETMEAL_CATEGORY = 2;
+
+    private static final int MAX_NAME_LENGTH = 32;
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_ERRORS = 100;
+
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private DishFlavorMapper dishFlavorMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private SetmealDishMapper setmealDishMapper;
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private CatalogCacheInvalidator catalogCacheInvalidator;
+    @Autowired
+    private CatalogSearchIndex catalogSearchIndex;
+
+    /**
+     * 批量导入菜品和套餐
+     * @param file
+     * @return
+     */
+    @Override
+    public ImportResultVO importCatalog(MultipartFile file) {
+        long start = System.nanoTime();
+        ImportSession session = new ImportSession();
+        File temp = null;
+        try {
+            //先落到临时文件，按文件打开时POI不会把整个压缩包读进内存
+            temp = File.createTempFile("catalog-import-", ".xlsx");
+            file.transferTo(temp);
+            XlsxRowReader.read(temp, session);
+            session.flushDishes();
+            session.flushSetmeals();
+        } catch (IOException e) {
+            log.warn("读取导入文件失败：{}", e.getMessage());
+            throw new ImportFailedException(MessageConstant.IMPORT_FILE_INVALID);
+        } finally {
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+            //中途失败时已经提交的批次也要失效缓存
+            session.publishChanges();
+        }
+
+        ImportResultVO result = session.result;
+        log.info("批量导入完成，读取{}行，菜品{}个，套餐{}个，失败{}行，耗时：{}ms", result.getTotal(),
+                result.getDishCount(), result.getSetmealCount(), result.getFailed(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    /**
+     * 一次导入的状态：当前批次的缓冲、分类名称映射、统计结果和受影响的分类
+     */
+    private class ImportSession implements XlsxRowReader.RowHandler {
+
+        private final Long userId = BaseContext.getCurrentId();
+
+        private final LocalDateTime now = LocalDateTime.now();
+
+        private final ImportResultVO result = new ImportResultVO();
+
+        private final Map<String, Long> dishCategories = categoryIdsByName(DISH_CATEGORY);
+
+        private final Map<String, Long> setmealCategories = categoryIdsByName(SETMEAL_CATEGORY);
+
+        private final List<DishRow> dishBuffer = new ArrayList<>();
+
+        private final List<SetmealRow> setmealBuffer = new ArrayList<>();
+
+        private final Set<Long> dishCategoryIds = new HashSet<>();
+
+        private final Set<Long> setmealCategoryIds = new HashSet<>();
+
+        //菜品工作表是否已读完。套餐引用同一文件中的菜品，套餐工作表在前时先缓冲全部套餐行，等菜品写入后再处理
+        private boolean dishSheetDone;
+
+        @Override
+        public void row(String sheetName, int rowNum, List<String> cells) {
+            //第一行是表头
+            if (rowNum == 0) {
+                return;
+            }
+            if (DISH_SHEET.equals(sheetName)) {
+                result.setTotal(result.getTotal() + 1);
+                DishRow row = parseDish(rowNum, cells);
+                if (row != null) {
+                    dishBuffer.add(row);
+                    if (dishBuffer.size() >= BatchUtil.MAX_IN_LIST_SIZE) {
+                        flushDishes();
+                    }
+                }
+            } else if (SETMEAL_SHEET.equals(sheetName)) {
+                result.setTotal(result.getTotal() + 1);
+                SetmealRow row = parseSetmeal(rowNum, cells);
+                if (row != null) {
+                    setmealBuffer.add(row);
+                    if (dishSheetDone && setmealBuffer.size() >= BatchUtil.MAX_IN_LIST_SIZE) {
+                        flushSetmeals();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void endSheet(String sheetName) {
+            if (DISH_SHEET.equals(sheetName)) {
+                flushDishes();
+                dishSheetDone = true;
+                flushSetmeals();
+            } else if (SETMEAL_SHEET.equals(sheetName) && dishSheetDone) {
+                flushSetmeals();
+            }
+        }
+
+        private DishRow parseDish(int rowNum, List<String> cells) {
+            try {
+                Dish dish = Dish.builder()
+                        .name(requireName(cell(cells, 0)))
+                        .categoryId(requireCategory(dishCategories, cell(cells, 1)))
+                        .price(parsePrice(cell(cells, 2)))
+                        .image(limitLength(cell(cells, 3), "图片"))
+                        .description(limitLength(cell(cells, 4), "描述"))
+                        .status(parseStatus(cell(cells, 5)))
+                        .createTime(now)
+                        .updateTime(now)
+                        .createUser(userId)
+                        .updateUser(userId)
+                        .build();
+                return new DishRow(rowNum, dish, parseFlavors(cell(cells, 6)));
+            } catch (IllegalArgumentException e) {
+                fail(DISH_SHEET, rowNum, e.getMessage());
+                return null;
+            }
+        }
+
+        private SetmealRow parseSetmeal(int rowNum, List<String> cells) {
+            try {
+                Setmeal setmeal = Setmeal.builder()
+                        .name(requireName(cell(cells, 0)))
+                        .categoryId(requireCategory(setmealCategories, cell(cells, 1)))
+                        .price(parsePrice(cell(cells, 2)))
+                        .image(limitLength(cell(cells, 3), "图片"))
+                        .description(limitLength(cell(cells, 4), "描述"))
+                        .status(parseStatus(cell(cells, 5)))
+                        .createTime(now)
+                        .updateTime(now)
+                        .createUser(userId)
+                        .updateUser(userId)
+                        .build();
+                return new SetmealRow(rowNum, setmeal, parseSetmealDishes(cell(cells, 6)));
+            } catch (IllegalArgumentException e) {
+                fail(SETMEAL_SHEET, rowNum, e.getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * 写入缓冲中的菜品：排除重名的行后，在一个事务中批量插入菜品，再用回填的id批量插入口味
+         */
+        void flushDishes() {
+            if (dishBuffer.isEmpty()) {
+                return;
+            }
+            List<DishRow> rows = new ArrayList<>(dishBuffer);
+            dishBuffer.clear();
+
+            Map<String, DishRow> byName = uniqueByName(DISH_SHEET, rows, r -> r.dish.getName(), r -> r.rowNum);
+            for (String name : dishMapper.getNamesByNames(new ArrayList<>(byName.keySet()))) {
+                fail(DISH_SHEET, byName.remove(name).rowNum, "菜品已存在：" + name);
+            }
+            if (byName.isEmpty()) {
+                return;
+            }
+
+            List<DishRow> toInsert = new ArrayList<>(byName.values());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    dishMapper.insertBatch(toInsert.stream().map(r -> r.dish).collect(Collectors.toList()));
+                    List<DishFlavor> flavors = new ArrayList<>();
+                    for (DishRow row : toInsert) {
+                        row.flavors.forEach(flavor -> flavor.setDishId(row.dish.getId()));
+                        flavors.addAll(row.flavors);
+                    }
+                    if (!flavors.isEmpty()) {
+                        dishFlavorMapper.insertBatch(flavors);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("批量写入菜品失败：{}", e.getMessage());
+                toInsert.forEach(row -> fail(DISH_SHEET, row.rowNum, "写入数据库失败"));
+                return;
+            }
+            result.setDishCount(result.getDishCount() + toInsert.size());
+            toInsert.forEach(row -> dishCategoryIds.add(row.dish.getCategoryId()));
+        }
+
+        /**
+         * 写入缓冲中的套餐：按名称查出引用的菜品，在一个事务中批量插入套餐和套餐菜品关系
+         */
+        void flushSetmeals() {
+            if (setmealBuffer.isEmpty()) {
+                return;
+            }
+            List<SetmealRow> rows = new ArrayList<>(setmealBuffer);
+            setmealBuffer.clear();
+
+            Map<String, SetmealRow> byName = uniqueByName(SETMEAL_SHEET, rows, r -> r.setmeal.getName(), r -> r.rowNum);
+            for (String name : setmealMapper.getNamesByNames(new ArrayList<>(byName.keySet()))) {
+                fail(SETMEAL_SHEET, byName.remove(name).rowNum, "套餐已存在：" + name);
+            }
+
+            //套餐引用的菜品按名称一次查出，IN列表过长时分批
+            Set<String> dishNames = new HashSet<>();
+            byName.values().forEach(row -> dishNames.addAll(row.dishCopies.keySet()));
+            Map<String, Dish> dishes = new HashMap<>();
+            for (List<String> chunk : BatchUtil.partition(new ArrayList<>(dishNames), BatchUtil.MAX_IN_LIST_SIZE)) {
+                dishMapper.listByNames(chunk).forEach(dish -> dishes.put(dish.getName(), dish));
+            }
+
+            List<SetmealRow> toInsert = new ArrayList<>();
+            for (SetmealRow row : byName.values()) {
+                String missing = row.dishCopies.keySet().stream()
+                        .filter(name -> !dishes.containsKey(name))
+                        .collect(Collectors.joining("、"));
+                if (!missing.isEmpty()) {
+                    fail(SETMEAL_SHEET, row.rowNum, "菜品不存在：" + missing);
+                } else if (StatusConstant.ENABLE.equals(row.setmeal.getStatus())
+                        && row.dishCopies.keySet().stream()
+                        .anyMatch(name -> StatusConstant.DISABLE.equals(dishes.get(name).getStatus()))) {
+                    //与套餐起售的规则一致：包含停售菜品（含本次导入中未填状态的菜品）的套餐不能起售
+                    fail(SETMEAL_SHEET, row.rowNum, MessageConstant.SETMEAL_ENABLE_FAILED);
+                } else {
+                    toInsert.add(row);
+                }
+            }
+            if (toInsert.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    setmealMapper.insertBatch(toInsert.stream().map(r -> r.setmeal).collect(Collectors.toList()));
+                    List<SetmealDish> setmealDishes = new ArrayList<>();
+                    for (SetmealRow row : toInsert) {
+                        row.dishCopies.forEach((name, copies) -> {
+                            Dish dish = dishes.get(name);
+                            setmealDishes.add(SetmealDish.builder()
+                                    .setmealId(row.setmeal.getId())
+                                    .dishId(dish.getId())
+                                    .name(dish.getName())
+                                    .price(dish.getPrice())
+                                    .copies(copies)
+                                    .build());
+                        });
+                    }
+                    setmealDishMapper.insertBatch(setmealDishes);
+                });
+            } catch (RuntimeException e) {
+                log.warn("批量写入套餐失败：{}", e.getMessage());
+                toInsert.forEach(row -> fail(SETMEAL_SHEET, row.rowNum, "写入数据库失败"));
+                return;
+            }
+            result.setSetmealCount(result.getSetmealCount() + toInsert.size());
+            toInsert.forEach(row -> setmealCategoryIds.add(row.setmeal.getCategoryId()));
+        }
+
+        /**
+         * 整个导入结束后统一失效一次缓存，并重建名称索引
+         */
+        void publishChanges() {
+            if (result.getDishCount() == 0 && result.getSetmealCount() == 0) {
+                return;
+            }
+            catalogCacheInvalidator.invalidate(
+                    CatalogChange.ofDishCategories(dishCategoryIds).withSetmealCategories(setmealCategoryIds));
+            catalogSearchIndex.reload();
+        }
+
+        /**
+         * 同一批次中名称重复的行只保留第一行
+         */
+        private <T> Map<String, T> uniqueByName(String sheetName, List<T> rows,
+                                                 Function<T, String> name, ToIntFunction<T> rowNum) {
+            Map<String, T> byName = new LinkedHashMap<>();
+            for (T row : rows) {
+                T first = byName.putIfAbsent(name.apply(row), row);
+                if (first != null) {
+                    fail(sheetName, rowNum.applyAsInt(row), "名称与第" + (rowNum.applyAsInt(first) + 1) + "行重复");
+                }
+            }
+            return byName;
+        }
+
+        private void fail(String sheetName, int rowNum, String reason) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < MAX_ERRORS) {
+                result.getErrors().add(sheetName + "第" + (rowNum + 1) + "行：" + reason);
+            }
+        }
+    }
+
+    private Map<String, Long> categoryIdsByName(int type) {
+        Map<String, Long> ids = new HashMap<>();
+        //新建的分类默认禁用，导入时同样可以使用
+        for (Category category : categoryMapper.listAllByType(type)) {
+            ids.put(category.getName(), category.getId());
+        }
+        return ids;
+    }
+
+    private static String cell(List<String> cells, int column) {
+        return column < cells.size() ? cells.get(column) : null;
+    }
+
+    private static String requireName(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("名称不能为空");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("名称不能超过" + MAX_NAME_LENGTH + "个字符");
+        }
+        return name;
+    }
+
+    private static Long requireCategory(Map<String, Long> categories, String name) {
+        Long id = name == null ? null : categories.get(name);
+        if (id == null) {
+            throw new IllegalArgumentException("分类不存在：" + name);
+        }
+        return id;
+    }
+
+    private static BigDecimal parsePrice(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("价格不能为空");
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(text.replaceAll("[¥￥,，\\s]", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("价格格式错误：" + text);
+        }
+        if (price.signum() < 0 || price.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("价格格式错误：" + text);
+        }
+        return price;
+    }
+
+    /**
+     * 状态为空时按停售导入，需要人工确认后再起售
+     */
+    private static Integer parseStatus(String text) {
+        if (text == null || "停售".equals(text) || "0".equals(text)) {
+            return StatusConstant.DISABLE;
+        }
+        if ("起售".equals(text) || "1".equals(text)) {
+            return StatusConstant.ENABLE;
+        }
+        throw new IllegalArgumentException("状态只能是起售或停售：" + text);
+    }
+
+    private static String limitLength(String text, String field) {
+        if (text != null && text.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException(field + "不能超过" + MAX_TEXT_LENGTH + "个字符");
+        }
+        return text;
+    }
+
+    /**
+     * 解析口味，格式：辣度:不辣,微辣;甜度:无糖,少糖，口味数据保存为JSON数组
+     */
+    private static List<DishFlavor> parseFlavors(String text) {
+        List<DishFlavor> flavors = new ArrayList<>();
+        if (text == null) {
+            return flavors;
+        }
+        Set<String> names = new HashSet<>();
+        for (String item : normalizeSeparators(text).split(";")) {
+            if (item.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = item.split(":", 2);
+            String name = parts[0].trim();
+            List<String> values = parts.length < 2 ? new ArrayList<>() : Arrays.stream(parts[1].split(","))
+                    .map(String::trim)
+                    .filter(value -> !value.isEmpty())
+                    .collect(Collectors.toList());
+            if (name.isEmpty() || values.isEmpty()) {
+                throw new IllegalArgumentException("口味格式错误：" + item);
+            }
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("口味重复：" + name);
+            }
+            flavors.add(DishFlavor.builder().name(name).value(JSON.toJSONString(values)).build());
+        }
+        return flavors;
+    }
+
+    /**
+     * 解析套餐菜品，格式：宫保鸡丁*1;米饭*2，份数省略时为1
+     */
+    private static Map<String, Integer> parseSetmealDishes(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("套餐菜品不能为空");
+        }
+        Map<String, Integer> dishCopies = new LinkedHashMap<>();
+        for (String item : normalizeSeparators(text).split(";")) {
+            if (item.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = item.split("[*×]", 2);
+            String name = parts[0].trim();
+            int copies;
+            try {
+                copies = parts.length < 2 ? 1 : Integer.parseInt(parts[1].trim());
+            } catch (NumberFormatException e) {
+                copies = 0;
+            }
+            if (name.isEmpty() || copies <= 0) {
+                throw new IllegalArgumentException("套餐菜品格式错误：" + item);
+            }
+            if (dishCopies.putIfAbsent(name, copies) != null) {
+                throw new IllegalArgumentException("套餐菜品重复：" + name);
+            }
+        }
+        if (dishCopies.isEmpty()) {
+            throw new IllegalArgumentException("套餐菜品不能为空");
+        }
+        return dishCopies;
+    }
+
+    private static String normalizeSeparators(String text) {
+        return text.replace('；', ';').replace('：', ':').replace('，', ',').replace('、', ',');
+    }
+
+    private static class DishRow {
+
+        private final int rowNum;
+
+        private final Dish dish;
+
+        private final List<DishFlavor> flavors;
+
+        DishRow(int rowNum, Dish dish, List<DishFlavor> flavors) {
+            this.rowNum = rowNum;
+            this.dish = dish;
+            this.flavors = flavors;
+        }
+    }
+
+    private static class SetmealRow {
+
+        private final int rowNum;
+
+        private final Setmeal setmeal;
+
+        //菜品名称到份数
+        private final Map<String, Integer> dishCopies;
+
+        SetmealRow(int rowNum, Setmeal setmeal, Map<String, Integer> dishCopies) {
+            this.rowNum = rowNum;
+            this.setmeal = setmeal;
+            this.dishCopies = dishCopies;
+        }
+    }
+
+}
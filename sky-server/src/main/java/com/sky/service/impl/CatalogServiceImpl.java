@@ -0,0 +1,111 @@
+package com.sky.service.impl;
+
+import com.sky.cache.TwoLevelCache;
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.constant.CacheConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.json.ResultSerializer;
+import com.sky.service.CatalogService;
+import com.sky.service.CategoryService;
+import com.sky.service.DishService;
+import com.sky.service.SetmealService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Callable;
+
+@Service
+@Slf4j
+public class CatalogServiceImpl implements CatalogService {
+
+    @Autowired
+    private DishService dishService;
+    @Autowired
+    private SetmealService setmealService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+
+    /**
+     * 根据分类id查询起售中的菜品及口味
+     * @param categoryId
+     * @return
+     */
+    @Cacheable(cacheNames = CacheConstant.DISH_CACHE, key = "#categoryId", sync = true)
+    public byte[] listDish(Long categoryId) {
+        return queryDish(categoryId);
+    }
+
+    /**
+     * 根据分类id查询起售中的套餐
+     * @param categoryId
+     * @return
+     */
+    @Cacheable(cacheNames = CacheConstant.SETMEAL_CACHE, key = "#categoryId", sync = true)
+    public byte[] listSetmeal(Long categoryId) {
+        return querySetmeal(categoryId);
+    }
+
+    /**
+     * 根据套餐id查询包含的菜品列表
+     * @param setmealId
+     * @return
+     */
+    @Cacheable(cacheNames = CacheConstant.SETMEAL_DISH_CACHE, key = "#setmealId", sync = true)
+    public byte[] listSetmealDish(Long setmealId) {
+        return ResultSerializer.success(setmealService.getDishItemById(setmealId));
+    }
+
+    /**
+     * 根据类型查询启用的分类
+     * @param type
+     * @return
+     */
+    @Cacheable(cacheNames = CacheConstant.CATEGORY_CACHE, key = "#type ?: '" + CacheConstant.ALL_CATEGORY_KEY + "'",
+            sync = true)
+    public byte[] listCategory(Integer type) {
+        return ResultSerializer.success(categoryService.list(type));
+    }
+
+    public byte[] refreshDish(Long categoryId) {
+        return refresh(CacheConstant.DISH_CACHE, categoryId, () -> queryDish(categoryId));
+    }
+
+    public byte[] refreshSetmeal(Long categoryId) {
+        return refresh(CacheConstant.SETMEAL_CACHE, categoryId, () -> querySetmeal(categoryId));
+    }
+
+    public byte[] refreshCategory(Integer type) {
+        //key与listCategory的缓存key一致
+        Object key = type == null ? CacheConstant.ALL_CATEGORY_KEY : type;
+        return refresh(CacheConstant.CATEGORY_CACHE, key, () -> ResultSerializer.success(categoryService.list(type)));
+    }
+
+    /**
+     * 预热不使用@CachePut：直接写入会跳过版本号检查，查询期间提交的修改会被旧数据覆盖。
+     * 通过缓存的加载流程写入，加载期间key被清理时只返回结果，不写入缓存
+     */
+    private byte[] refresh(String cacheName, Object key, Callable<byte[]> loader) {
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache(cacheName);
+        return (byte[]) cache.refresh(key, loader);
+    }
+
+    private byte[] queryDish(Long categoryId) {
+        Dish dish = new Dish();
+        dish.setCategoryId(categoryId);
+        dish.setStatus(StatusConstant.ENABLE);
+        return ResultSerializer.success(dishService.listWithFlavor(dish));
+    }
+
+    private byte[] querySetmeal(Long categoryId) {
+        Setmeal setmeal = new Setmeal();
+        setmeal.setCategoryId(categoryId);
+        setmeal.setStatus(StatusConstant.ENABLE);
+        return ResultSerializer.success(setmealService.list(setmeal));
+    }
+}
@@ -1,7 +1,9 @@
 package com.sky.service.impl;
 
-import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.annotation.ReadOnly;
+import com.sky.cache.CatalogCacheInvalidator;
+import com.sky.cache.CatalogChange;
+import com.sky.cache.PageTotalCache;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.context.BaseContext;
@@ -12,13 +14,16 @@ import com.sky.exception.DeletionNotAllowedException;
 import com.sky.mapper.CategoryMapper;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealMapper;
+import com.sky.result.PageCursor;
 import com.sky.result.PageResult;
+import com.sky.result.SeekPageResult;
 import com.sky.service.CategoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -34,6 +39,10 @@ public class CategoryServiceImpl implements CategoryService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private CatalogCacheInvalidator catalogCacheInvalidator;
+    @Autowired
+    private PageTotalCache pageTotalCache;
 
     /**
      * 新增分类
@@ -54,6 +63,8 @@ public class CategoryServiceImpl implements CategoryService {
 //        category.setUpdateUser(BaseContext.getCurrentId());
 
         categoryMapper.insert(category);
+
+        catalogCacheInvalidator.invalidate(CatalogChange.ofCategory());
     }
 
     /**
@@ -61,11 +72,26 @@ public class CategoryServiceImpl implements CategoryService {
      * @param categoryPageQueryDTO
      * @return
      */
+    @ReadOnly
     public PageResult pageQuery(CategoryPageQueryDTO categoryPageQueryDTO) {
-        PageHelper.startPage(categoryPageQueryDTO.getPage(),categoryPageQueryDTO.getPageSize());
-        //下一条sql进行分页，自动加入limit关键字分页
-        Page<Category> page = categoryMapper.pageQuery(categoryPageQueryDTO);
-        return new PageResult(page.getTotal(), page.getResult());
+        return pageTotalCache.query(PageTotalCache.CATEGORY,
+                Arrays.asList(categoryPageQueryDTO.getName(), categoryPageQueryDTO.getType()),
+                categoryPageQueryDTO.getPage(), categoryPageQueryDTO.getPageSize(),
+                () -> categoryMapper.pageQuery(categoryPageQueryDTO));
+    }
+
+    /**
+     * 分类游标分页查询
+     * @param categoryPageQueryDTO
+     * @return
+     */
+    @Override
+    @ReadOnly
+    public SeekPageResult seekQuery(CategoryPageQueryDTO categoryPageQueryDTO) {
+        int pageSize = SeekPageResult.normalizePageSize(categoryPageQueryDTO.getPageSize());
+        PageCursor cursor = PageCursor.decode(categoryPageQueryDTO.getCursor());
+        List<Category> rows = categoryMapper.seekQuery(categoryPageQueryDTO, cursor, pageSize + 1);
+        return SeekPageResult.of(rows, pageSize, r -> new PageCursor(r.getCreateTime(), r.getId()));
     }
 
     /**
@@ -89,6 +115,8 @@ public class CategoryServiceImpl implements CategoryService {
 
         //删除分类数据
         categoryMapper.deleteById(id);
+
+        catalogCacheInvalidator.invalidate(CatalogChange.ofCategory());
     }
 
     /**
@@ -104,6 +132,8 @@ public class CategoryServiceImpl implements CategoryService {
 //        category.setUpdateUser(BaseContext.getCurrentId());
 
         categoryMapper.update(category);
+
+        catalogCacheInvalidator.invalidate(CatalogChange.ofCategory());
     }
 
     /**
@@ -119,6 +149,8 @@ public class CategoryServiceImpl implements CategoryService {
 //                .updateUser(BaseContext.getCurrentId())
                 .build();
         categoryMapper.update(category);
+
+        catalogCacheInvalidator.invalidate(CatalogChange.ofCategory());
     }
 
     /**
@@ -1,30 +1,47 @@
 package com.sky.service.impl;
 
-import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.annotation.ReadOnly;
+import com.sky.cache.CatalogCacheInvalidator;
+import com.sky.cache.CatalogChange;
+import com.sky.cache.PageTotalCache;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.entity.DishFlavor;
+import com.sky.exception.DataNotFoundException;
 import com.sky.exception.DeletionNotAllowedException;
 import com.sky.mapper.DishFlavorMapper;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealDishMapper;
+import com.sky.result.PageCursor;
 import com.sky.result.PageResult;
+import com.sky.result.SeekPageResult;
+import com.sky.search.CatalogSearchIndex;
 import com.sky.service.DishService;
+import com.sky.utils.BatchUtil;
+import com.sky.utils.RowDiff;
 import com.sky.vo.DishVO;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class DishServiceImpl implements DishService {
 
     @Autowired
@@ -33,6 +50,12 @@ public class DishServiceImpl implements DishService {
     private DishFlavorMapper dishFlavorMapper;
     @Autowired
     private SetmealDishMapper setmealDishMapper;
+    @Autowired
+    private CatalogCacheInvalidator catalogCacheInvalidator;
+    @Autowired
+    private PageTotalCache pageTotalCache;
+    @Autowired
+    private CatalogSearchIndex catalogSearchIndex;
 
     /**
      * 保存菜品及其口味信息
@@ -55,6 +78,10 @@ public class DishServiceImpl implements DishService {
             flavors.forEach(dishFlavor -> dishFlavor.setDishId(dishId));
             dishFlavorMapper.insertBatch(flavors);
         }
+
+        catalogSearchIndex.putDish(dishId, dish.getName());
+        catalogCacheInvalidator.invalidate(
+                CatalogChange.ofDishCategories(Collections.singletonList(dish.getCategoryId())));
     }
 
     /**
@@ -64,14 +91,36 @@ public class DishServiceImpl implements DishService {
      * @return PageResult 分页查询结果对象，包含总记录数和当前页的数据列表
      */
     @Override
+    @ReadOnly
     public PageResult dishPageQuery(DishPageQueryDTO dishPageQueryDTO) {
-        // 设置分页参数
-        PageHelper.startPage(dishPageQueryDTO.getPage(),
-                dishPageQueryDTO.getPageSize());
-        // 执行分页查询
-        Page<DishVO> page = dishMapper.pageQuery(dishPageQueryDTO);
-        // 构造并返回分页结果
-        return new PageResult(page.getTotal(), page.getResult());
+        // 按名称过滤时优先使用名称索引命中的id
+        dishPageQueryDTO.setIds(catalogSearchIndex.matchDishIds(dishPageQueryDTO.getName()));
+        if (dishPageQueryDTO.getIds() != null && dishPageQueryDTO.getIds().isEmpty()) {
+            return new PageResult(0, new ArrayList<>());
+        }
+        // 总记录数按查询条件缓存，分页只查询当前页
+        return pageTotalCache.query(PageTotalCache.DISH,
+                Arrays.asList(dishPageQueryDTO.getName(), dishPageQueryDTO.getCategoryId(), dishPageQueryDTO.getStatus()),
+                dishPageQueryDTO.getPage(), dishPageQueryDTO.getPageSize(),
+                () -> dishMapper.pageQuery(dishPageQueryDTO));
+    }
+
+    /**
+     * 菜品游标分页查询
+     * @param dishPageQueryDTO
+     * @return
+     */
+    @Override
+    @ReadOnly
+    public SeekPageResult dishSeekQuery(DishPageQueryDTO dishPageQueryDTO) {
+        dishPageQueryDTO.setIds(catalogSearchIndex.matchDishIds(dishPageQueryDTO.getName()));
+        if (dishPageQueryDTO.getIds() != null && dishPageQueryDTO.getIds().isEmpty()) {
+            return new SeekPageResult(new ArrayList<>(), null, false);
+        }
+        int pageSize = SeekPageResult.normalizePageSize(dishPageQueryDTO.getPageSize());
+        PageCursor cursor = PageCursor.decode(dishPageQueryDTO.getCursor());
+        List<DishVO> rows = dishMapper.seekQuery(dishPageQueryDTO, cursor, pageSize + 1);
+        return SeekPageResult.of(rows, pageSize, r -> new PageCursor(r.getCreateTime(), r.getId()));
     }
 
     /**
@@ -83,61 +132,100 @@ public class DishServiceImpl implements DishService {
     @Override
     @Transactional
     public void deleteDishByIds(List<Long> ids) {
-        //判断菜品是否处于起售状态
-        for (Long id : ids) {
-            Dish dish = dishMapper.getById(id);
-            if (dish.getStatus() == StatusConstant.ENABLE) {
+        //校验和删除都按id集合整体执行，id过多时分批，每批各一条语句
+        List<List<Long>> chunks = BatchUtil.partition(ids, BatchUtil.MAX_IN_LIST_SIZE);
+        Set<Long> categoryIds = new LinkedHashSet<>();
+        for (List<Long> chunk : chunks) {
+            //判断是否有菜品处于起售状态
+            if (dishMapper.countByIdsAndStatus(chunk, StatusConstant.ENABLE) > 0) {
                 throw new DeletionNotAllowedException(MessageConstant.DISH_ON_SALE);
             }
+            //判断是否有菜品处于套餐中
+            if (setmealDishMapper.countByDishIds(chunk) > 0) {
+                throw new DeletionNotAllowedException(
+                        MessageConstant.DISH_BE_RELATED_BY_SETMEAL);
+            }
+            //删除前记录菜品所在的分类，用于精确失效缓存
+            categoryIds.addAll(dishMapper.getCategoryIdsByIds(chunk));
         }
 
-        //判断菜品是否处于套餐中
-        List<Long> setmealIds = setmealDishMapper.getSetmealIdsByDishIds(ids);
-        if (setmealIds != null && setmealIds.size() > 0) {
-            throw new DeletionNotAllowedException(
-                    MessageConstant.DISH_BE_RELATED_BY_SETMEAL);
+        //批量删除菜品和口味
+        for (List<Long> chunk : chunks) {
+            dishMapper.deleteBatchByIds(chunk);
+            dishFlavorMapper.deleteBatchByIds(chunk);
         }
 
-        //批量删除菜品和口味
-        dishMapper.deleteBatchByIds(ids);
-        dishFlavorMapper.deleteBatchByIds(ids);
+        catalogSearchIndex.removeDishes(ids);
+        catalogCacheInvalidator.invalidate(CatalogChange.ofDishCategories(categoryIds));
     }
 
     @Override
     public DishVO getById(Long id) {
-        //查询基本信息
-        Dish dish = dishMapper.getById(id);
-        //查询口味信息
-        List<DishFlavor> flavors = dishFlavorMapper.getFlavorsByDishId(id);
-        //封装到DishVO中
-        DishVO dishVO = new DishVO();
-        BeanUtils.copyProperties(dish, dishVO);
-        dishVO.setFlavors(flavors);
-        return dishVO;
+        //菜品基本信息和口味信息通过一条关联查询获取
+        return dishMapper.getByIdWithFlavor(id);
     }
 
     @Override
+    @Transactional
     public void updateWithFlavor(DishDTO dishDTO) {
+        //修改前的菜品，用于判断哪些数据有变化；菜品移动分类时新旧分类的缓存都要失效
+        //二级缓存可能落后于数据库，修改前的数据直接查库
+        Dish oldDish = dishMapper.getByIdNoCache(dishDTO.getId());
+        if (oldDish == null) {
+            throw new DataNotFoundException(MessageConstant.DISH_NOT_FOUND);
+        }
+
         Dish dish = new Dish();
         BeanUtils.copyProperties(dishDTO, dish);
-        //根据ID修改菜品基本数据
-        dishMapper.updateDish(dish);
+        //菜品基本数据没有变化时不执行update
+        int dishRows = isDishChanged(oldDish, dish) ? dishMapper.updateDish(dish) : 0;
         //菜品的ID,转成集合
         Long dishId = dishDTO.getId();
         List<Long> dishIdList = Collections.singletonList(dishId);
-        //菜品的口味数据
+
+        //口味按名称与已有的口味对应，只新增、修改、删除有变化的口味；未提交口味（null）时口味不变，空列表表示删除全部口味
         List<DishFlavor> flavors = dishDTO.getFlavors();
-        //修改菜品口味数据有两步，先删除，再插入
-        //删除
-        dishFlavorMapper.deleteBatchByIds(dishIdList);
-        //插入
-        if (flavors != null && flavors.size() > 0) {
+        RowDiff<DishFlavor> diff = RowDiff.unchanged();
+        if (flavors != null) {
             flavors.forEach(dishFlavor -> dishFlavor.setDishId(dishId));
-            dishFlavorMapper.insertBatch(flavors);
+            diff = RowDiff.of(dishFlavorMapper.getFlavorsByDishId(dishId), flavors,
+                    DishFlavor::getName, (stored, submitted) -> Objects.equals(stored.getValue(), submitted.getValue()),
+                    DishFlavor::getId, DishFlavor::setId);
+        }
+        int inserted = diff.getInserts().isEmpty() ? 0 : dishFlavorMapper.insertBatch(diff.getInserts());
+        int updated = diff.getUpdates().isEmpty() ? 0 : dishFlavorMapper.updateBatch(diff.getUpdates());
+        int deleted = diff.getDeleteIds().isEmpty() ? 0 : dishFlavorMapper.deleteByIds(diff.getDeleteIds());
+        log.info("修改菜品：id={}，菜品表影响行数：{}，口味新增：{}，修改：{}，删除：{}",
+                dishId, dishRows, inserted, updated, deleted);
+        if (dishRows == 0 && diff.isEmpty()) {
+            return;
+        }
+
+        CatalogChange change = CatalogChange.ofDishCategories(
+                Arrays.asList(oldDish.getCategoryId(), dishDTO.getCategoryId()));
+        //套餐菜品列表展示的是菜品的图片和描述（名称取自套餐菜品关系表），变化时失效包含该菜品的套餐
+        if (!Objects.equals(oldDish.getImage(), dish.getImage())
+                || !Objects.equals(oldDish.getDescription(), dish.getDescription())) {
+            change.withSetmeals(setmealDishMapper.getSetmealIdsByDishIds(dishIdList));
         }
+        catalogSearchIndex.putDish(dishId, dish.getName());
+        catalogCacheInvalidator.invalidate(change);
     }
 
 
+    /**
+     * 按updateDish的规则（空值不修改）判断菜品基本数据是否有变化
+     */
+    private static boolean isDishChanged(Dish oldDish, Dish dish) {
+        return (StringUtils.hasLength(dish.getName()) && !dish.getName().equals(oldDish.getName()))
+                || (dish.getCategoryId() != null && !dish.getCategoryId().equals(oldDish.getCategoryId()))
+                || (dish.getPrice() != null
+                        && (oldDish.getPrice() == null || dish.getPrice().compareTo(oldDish.getPrice()) != 0))
+                || (StringUtils.hasLength(dish.getImage()) && !dish.getImage().equals(oldDish.getImage()))
+                || (StringUtils.hasLength(dish.getDescription()) && !dish.getDescription().equals(oldDish.getDescription()))
+                || (dish.getStatus() != null && !dish.getStatus().equals(oldDish.getStatus()));
+    }
+
     /**
      * 条件查询菜品和口味
      *
@@ -146,17 +234,21 @@ public class DishServiceImpl implements DishService {
      */
     public List<DishVO> listWithFlavor(Dish dish) {
         List<Dish> dishList = dishMapper.list(dish);
+        if (dishList == null || dishList.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        //一次性查询所有菜品的口味，再在内存中按菜品id分组
+        List<Long> dishIds = dishList.stream().map(Dish::getId).collect(Collectors.toList());
+        Map<Long, List<DishFlavor>> flavorMap = dishFlavorMapper.getByDishIds(dishIds).stream()
+                .collect(Collectors.groupingBy(DishFlavor::getDishId));
 
-        List<DishVO> dishVOList = new ArrayList<>();
+        List<DishVO> dishVOList = new ArrayList<>(dishList.size());
 
         for (Dish d : dishList) {
             DishVO dishVO = new DishVO();
             BeanUtils.copyProperties(d, dishVO);
-
-            //根据菜品id查询对应的口味
-            List<DishFlavor> flavors = dishFlavorMapper.getFlavorsByDishId(d.getId());
-
-            dishVO.setFlavors(flavors);
+            dishVO.setFlavors(flavorMap.getOrDefault(d.getId(), new ArrayList<>()));
             dishVOList.add(dishVO);
         }
 
@@ -164,6 +256,7 @@ public class DishServiceImpl implements DishService {
     }
 
     @Override
+    @ReadOnly
     public List<Dish> list(Long categoryId) {
         Dish dish = Dish.builder()
                 .categoryId(categoryId)
@@ -1,7 +1,7 @@
 package com.sky.service.impl;
 
-import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.annotation.ReadOnly;
+import com.sky.cache.PageTotalCache;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.PasswordConstant;
 import com.sky.constant.StatusConstant;
@@ -14,7 +14,9 @@ import com.sky.exception.AccountLockedException;
 import com.sky.exception.AccountNotFoundException;
 import com.sky.exception.PasswordErrorException;
 import com.sky.mapper.EmployeeMapper;
+import com.sky.result.PageCursor;
 import com.sky.result.PageResult;
+import com.sky.result.SeekPageResult;
 import com.sky.service.EmployeeService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -23,6 +25,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 @Slf4j
@@ -31,6 +34,8 @@ public class EmployeeServiceImpl implements EmployeeService {
 
     @Autowired
     private EmployeeMapper employeeMapper;
+    @Autowired
+    private PageTotalCache pageTotalCache;
 
     /**
      * 员工登录
@@ -85,6 +90,7 @@ public class EmployeeServiceImpl implements EmployeeService {
 //        employee.setCreateUser(BaseContext.getCurrentId());
 //        employee.setUpdateUser(BaseContext.getCurrentId());
         employeeMapper.add(employee);
+        pageTotalCache.invalidate(PageTotalCache.EMPLOYEE);
     }
 
         /**
@@ -94,17 +100,28 @@ public class EmployeeServiceImpl implements EmployeeService {
      * @return PageResult 分页查询结果对象，包含总记录数和当前页的数据列表
      */
     @Override
+    @ReadOnly
     public PageResult pageQuery(EmployeePageQueryDTO employeePageQueryDTO) {
-        // 设置分页参数
-        PageHelper.startPage(employeePageQueryDTO.getPage(),
-                employeePageQueryDTO.getPageSize());
         log.info("员工分页查询开始......");
-        // 执行分页查询
-        Page<Employee> page = employeeMapper.pageQuery(employeePageQueryDTO);
-        long total = page.getTotal();
-        List<Employee> result = page.getResult();
-        // 封装分页结果
-        return new PageResult(total, result);
+        // 总记录数按查询条件缓存，分页只查询当前页
+        return pageTotalCache.query(PageTotalCache.EMPLOYEE,
+                Collections.singletonList(employeePageQueryDTO.getName()),
+                employeePageQueryDTO.getPage(), employeePageQueryDTO.getPageSize(),
+                () -> employeeMapper.pageQuery(employeePageQueryDTO));
+    }
+
+    /**
+     * 员工游标分页查询
+     * @param employeePageQueryDTO
+     * @return
+     */
+    @Override
+    @ReadOnly
+    public SeekPageResult seekQuery(EmployeePageQueryDTO employeePageQueryDTO) {
+        int pageSize = SeekPageResult.normalizePageSize(employeePageQueryDTO.getPageSize());
+        PageCursor cursor = PageCursor.decode(employeePageQueryDTO.getCursor());
+        List<Employee> rows = employeeMapper.seekQuery(employeePageQueryDTO, cursor, pageSize + 1);
+        return SeekPageResult.of(rows, pageSize, r -> new PageCursor(r.getCreateTime(), r.getId()));
     }
 
 
@@ -157,6 +174,7 @@ public class EmployeeServiceImpl implements EmployeeService {
 
         // 执行数据库更新操作
         employeeMapper.update(employee);
+        pageTotalCache.invalidate(PageTotalCache.EMPLOYEE);
     }
 
 
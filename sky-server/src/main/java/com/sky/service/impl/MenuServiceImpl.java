@@ -0,0 +1,158 @@
+package com.sky.service.impl;
+
+import com.sky.cache.MenuSnapshot;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.entity.Setmeal;
+import com.sky.json.ResultSerializer;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.service.MenuService;
+import com.sky.vo.DishVO;
+import com.sky.vo.MenuCategoryVO;
+import com.sky.vo.MenuSnapshotVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 整份菜单快照：用户端一次请求拿到所有启用分类、菜品（含口味）和套餐
+ */
+@Service
+@Slf4j
+public class MenuServiceImpl implements MenuService {
+
+    private static final String VERSION_KEY = "MENU_VERSION";
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private DishFlavorMapper dishFlavorMapper;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private volatile MenuSnapshot snapshot;
+
+    /**
+     * 获取当前版本的菜单快照
+     * @return
+     */
+    public MenuSnapshot getSnapshot() {
+        long version = currentVersion();
+        MenuSnapshot current = snapshot;
+        if (isUsable(current, version)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (isUsable(current, version)) {
+                return current;
+            }
+            current = build(Math.max(version, 0));
+            snapshot = current;
+            return current;
+        }
+    }
+
+    /**
+     * 递增菜单版本号
+     */
+    public void bumpVersion() {
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+        } catch (Exception e) {
+            //Redis不可用时至少保证本节点下次请求重新生成快照
+            log.warn("递增菜单版本号失败：{}", e.getMessage());
+            snapshot = null;
+        }
+    }
+
+    /**
+     * 读取Redis中的菜单版本号，读取失败时返回-1，表示沿用本地快照
+     */
+    private long currentVersion() {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+            return version == null ? 0 : Long.parseLong(version);
+        } catch (Exception e) {
+            log.warn("读取菜单版本号失败：{}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private static boolean isUsable(MenuSnapshot current, long version) {
+        return current != null && (version < 0 || current.getVersion() == version);
+    }
+
+    /**
+     * 先确定版本号再查询数据库，保证快照内容不旧于其版本号
+     */
+    private MenuSnapshot build(long version) {
+        long start = System.currentTimeMillis();
+
+        List<Category> categories = categoryMapper.list(null);
+
+        //所有起售菜品一次查出，口味按菜品id一次查出，再在内存中组装
+        Dish dishQuery = Dish.builder().status(StatusConstant.ENABLE).build();
+        List<Dish> dishes = dishMapper.list(dishQuery);
+        Map<Long, List<DishFlavor>> flavorMap = dishes.isEmpty() ? new HashMap<>() :
+                dishFlavorMapper.getByDishIds(dishes.stream().map(Dish::getId).collect(Collectors.toList()))
+                        .stream().collect(Collectors.groupingBy(DishFlavor::getDishId));
+        Map<Long, List<DishVO>> dishMap = new HashMap<>();
+        for (Dish dish : dishes) {
+            DishVO dishVO = new DishVO();
+            BeanUtils.copyProperties(dish, dishVO);
+            dishVO.setFlavors(flavorMap.getOrDefault(dish.getId(), new ArrayList<>()));
+            dishMap.computeIfAbsent(dish.getCategoryId(), k -> new ArrayList<>()).add(dishVO);
+        }
+
+        Setmeal setmealQuery = Setmeal.builder().status(StatusConstant.ENABLE).build();
+        Map<Long, List<Setmeal>> setmealMap = setmealMapper.list(setmealQuery).stream()
+                .collect(Collectors.groupingBy(Setmeal::getCategoryId));
+
+        List<MenuCategoryVO> menuCategories = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            menuCategories.add(MenuCategoryVO.builder()
+                    .id(category.getId())
+                    .type(category.getType())
+                    .name(category.getName())
+                    .sort(category.getSort())
+                    .dishes(dishMap.getOrDefault(category.getId(), new ArrayList<>()))
+                    .setmeals(setmealMap.getOrDefault(category.getId(), new ArrayList<>()))
+                    .build());
+        }
+
+        MenuSnapshotVO snapshotVO = MenuSnapshotVO.builder()
+                .version(version)
+                .buildTime(LocalDateTime.now())
+                .categories(menuCategories)
+                .build();
+
+        byte[] body = ResultSerializer.success(snapshotVO);
+        //ETag只取决于版本号和菜单内容，不含buildTime，各节点生成的同一版本快照ETag相同，负载均衡后304仍然有效
+        String contentHash = DigestUtils.md5DigestAsHex(ResultSerializer.success(menuCategories));
+        String etag = "\"" + version + "-" + contentHash + "\"";
+
+        log.info("生成菜单快照，版本：{}，大小：{}字节，耗时：{}ms", version, body.length,
+                System.currentTimeMillis() - start);
+        return new MenuSnapshot(version, etag, body);
+    }
+}
@@ -0,0 +1,358 @@
+package com.sky.service.impl;
+
+import com.alibaba.fastjson.JSONObject;
+import com.sky.annotation.Idempotent;
+import com.sky.annotation.ReadOnly;
+import com.sky.cart.CartStore;
+import com.sky.constant.MessageConstant;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersCancelDTO;
+import com.sky.dto.OrdersConfirmDTO;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.dto.OrdersPaymentDTO;
+import com.sky.dto.OrdersRejectionDTO;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.entity.AddressBook;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.entity.ShoppingCart;
+import com.sky.entity.User;
+import com.sky.exception.AddressBookBusinessException;
+import com.sky.exception.OrderBusinessException;
+import com.sky.exception.ShoppingCartBusinessException;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.order.OrderDeadlineScheduler;
+import com.sky.order.OrderEvent;
+import com.sky.order.OrderRefundProcessor;
+import com.sky.order.OrderStateMachine;
+import com.sky.order.TransitionResult;
+import com.sky.properties.WebSocketProperties;
+import com.sky.result.PageCursor;
+import com.sky.result.SeekPageResult;
+import com.sky.service.OrderService;
+import com.sky.utils.SnowflakeIdGenerator;
+import com.sky.utils.WeChatPayUtil;
+import com.sky.vo.OrderPaymentVO;
+import com.sky.vo.OrderSubmitVO;
+import com.sky.vo.OrderVO;
+import com.sky.websocket.OrderPushEvent;
+import com.sky.websocket.OrderPushService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class OrderServiceImpl implements OrderService {
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+    @Autowired
+    private CartStore cartStore;
+    @Autowired
+    private AddressBookMapper addressBookMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    @Autowired
+    private OrderDeadlineScheduler orderDeadlineScheduler;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private WeChatPayUtil weChatPayUtil;
+    @Autowired
+    private OrderPushService orderPushService;
+    @Autowired
+    private OrderRefundProcessor orderRefundProcessor;
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 用户下单。
+     * 先在Redis中原子地取出并清空购物车，同一购物车的重复提交拿到的是空购物车；
+     * 金额在内存中算好，事务内只有插入订单和一条多行insert插入全部明细两条写语句，失败时把商品放回购物车。
+     * 事务提交后登记超时未支付的取消时间，并向管理端推送来单提醒。客户端重试使用同一请求令牌，不会重复下单
+     * @param ordersSubmitDTO
+     * @return
+     */
+    @Override
+    @Idempotent("submit")
+    public OrderSubmitVO submit(OrdersSubmitDTO ordersSubmitDTO) {
+        Long userId = BaseContext.getCurrentId();
+
+        AddressBook addressBook = addressBookMapper.getByIdAndUserId(ordersSubmitDTO.getAddressBookId(), userId);
+        if (addressBook == null) {
+            throw new AddressBookBusinessException(MessageConstant.ADDRESS_BOOK_IS_NULL);
+        }
+        List<ShoppingCart> cart = cartStore.claim(userId);
+        if (cart == null || cart.isEmpty()) {
+            throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
+        }
+
+        Orders orders;
+        try {
+            orders = saveOrder(ordersSubmitDTO, userId, addressBook, cart);
+        } catch (RuntimeException e) {
+            cartStore.restore(userId, cart);
+            throw e;
+        }
+        orderDeadlineScheduler.schedulePaymentTimeout(orders.getId(), orders.getOrderTime());
+        orderPushService.push(OrderPushEvent.builder()
+                .type(OrderPushEvent.NEW_ORDER)
+                .orderId(orders.getId())
+                .content("订单号：" + orders.getNumber())
+                .build());
+
+        return OrderSubmitVO.builder()
+                .id(orders.getId())
+                .orderNumber(orders.getNumber())
+                .orderAmount(orders.getAmount())
+                .orderTime(orders.getOrderTime())
+                .build();
+    }
+
+    /**
+     * 订单支付。同一请求令牌只会向微信支付下单一次，重复请求返回相同的支付参数
+     * @param ordersPaymentDTO
+     * @return
+     */
+    @Override
+    @Idempotent("payment")
+    public OrderPaymentVO payment(OrdersPaymentDTO ordersPaymentDTO) throws Exception {
+        Long userId = BaseContext.getCurrentId();
+        Orders orders = orderMapper.getByNumberAndUserId(ordersPaymentDTO.getOrderNumber(), userId);
+        if (orders == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        if (!Orders.PENDING_PAYMENT.equals(orders.getStatus())) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+        User user = userMapper.getById(userId);
+
+        JSONObject jsonObject = weChatPayUtil.pay(orders.getNumber(), orders.getAmount(), "苍穹外卖订单",
+                user.getOpenid());
+        if ("ORDERPAID".equals(jsonObject.getString("code"))) {
+            throw new OrderBusinessException(MessageConstant.ORDER_PAID);
+        }
+        OrderPaymentVO orderPaymentVO = jsonObject.toJavaObject(OrderPaymentVO.class);
+        orderPaymentVO.setPackageStr(jsonObject.getString("package"));
+        return orderPaymentVO;
+    }
+
+    /**
+     * 历史订单。按(order_time, id)游标分页，不统计总数；本页全部订单的明细用一条in查询取出后在内存中分组
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    @Override
+    @ReadOnly
+    public SeekPageResult historyOrders(OrdersPageQueryDTO ordersPageQueryDTO) {
+        ordersPageQueryDTO.setUserId(BaseContext.getCurrentId());
+        int pageSize = SeekPageResult.normalizePageSize(ordersPageQueryDTO.getPageSize());
+        PageCursor cursor = PageCursor.decode(ordersPageQueryDTO.getCursor());
+        List<OrderVO> rows = orderMapper.seekByUser(ordersPageQueryDTO, cursor, pageSize + 1);
+        SeekPageResult result = SeekPageResult.of(rows, pageSize, r -> new PageCursor(r.getOrderTime(), r.getId()));
+
+        @SuppressWarnings("unchecked")
+        List<OrderVO> orders = result.getRecords();
+        if (orders.isEmpty()) {
+            return result;
+        }
+        List<Long> orderIds = orders.stream().map(OrderVO::getId).collect(Collectors.toList());
+        Map<Long, List<OrderDetail>> detailsByOrderId = orderDetailMapper.getByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+        for (OrderVO orderVO : orders) {
+            List<OrderDetail> details = detailsByOrderId.getOrDefault(orderVO.getId(), Collections.emptyList());
+            orderVO.setOrderDetailList(details);
+            orderVO.setOrderDishes(orderDishes(details));
+        }
+        return result;
+    }
+
+    /**
+     * 催单。只有待接单、已接单的订单可以催单，同一订单在间隔时间内只推送一次
+     * @param id
+     */
+    @Override
+    public void reminder(Long id) {
+        Orders orders = orderMapper.getById(id);
+        if (orders == null || !orders.getUserId().equals(BaseContext.getCurrentId())) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        if (!Orders.TO_BE_CONFIRMED.equals(orders.getStatus()) && !Orders.CONFIRMED.equals(orders.getStatus())) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+        Boolean first = stringRedisTemplate.opsForValue().setIfAbsent(webSocketProperties.getReminderKeyPrefix() + id,
+                "1", Duration.ofSeconds(webSocketProperties.getReminderIntervalSeconds()));
+        if (!Boolean.TRUE.equals(first)) {
+            throw new OrderBusinessException(MessageConstant.REMINDER_TOO_FREQUENT);
+        }
+        orderPushService.push(OrderPushEvent.builder()
+                .type(OrderPushEvent.REMINDER)
+                .orderId(id)
+                .content("订单号：" + orders.getNumber())
+                .build());
+    }
+
+    @Override
+    public void userCancel(Long id) {
+        Orders orders = orderMapper.getStatusById(id);
+        if (orders == null || !orders.getUserId().equals(BaseContext.getCurrentId())) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        cancelOrder(id, OrderEvent.USER_CANCEL, null);
+    }
+
+    @Override
+    public void confirm(OrdersConfirmDTO ordersConfirmDTO) {
+        check(orderStateMachine.fire(ordersConfirmDTO.getId(), OrderEvent.CONFIRM));
+    }
+
+    @Override
+    public void rejection(OrdersRejectionDTO ordersRejectionDTO) {
+        cancelOrder(ordersRejectionDTO.getId(), OrderEvent.REJECT, ordersRejectionDTO.getRejectionReason());
+    }
+
+    @Override
+    public void cancel(OrdersCancelDTO ordersCancelDTO) {
+        cancelOrder(ordersCancelDTO.getId(), OrderEvent.ADMIN_CANCEL, ordersCancelDTO.getCancelReason());
+    }
+
+    @Override
+    public void delivery(Long id) {
+        check(orderStateMachine.fire(id, OrderEvent.DELIVER));
+        orderDeadlineScheduler.scheduleAutoComplete(id);
+    }
+
+    @Override
+    public void complete(Long id) {
+        check(orderStateMachine.fire(id, OrderEvent.COMPLETE));
+    }
+
+    /**
+     * 取消或拒单。状态转换在事务外单独提交，已支付的订单提交后再申请退款，不在持有行锁时调用微信支付；
+     * 转换前先登记待退款，退款失败或提交后进程退出时由OrderRefundProcessor重试
+     */
+    private void cancelOrder(Long id, OrderEvent event, String reason) {
+        orderRefundProcessor.markPending(id);
+        TransitionResult result = orderStateMachine.fire(id, event, reason);
+        if (result.isRefundRequired()) {
+            //退款失败不影响取消结果，订单已是退款状态，由补偿任务继续申请
+            orderRefundProcessor.refund(id);
+        } else {
+            orderRefundProcessor.clear(id);
+        }
+        check(result);
+    }
+
+    /**
+     * 接口调用方需要明确的失败提示，状态转换没有生效时转为业务异常
+     */
+    private static void check(TransitionResult result) {
+        if (result.isApplied()) {
+            return;
+        }
+        if (result.getOutcome() == TransitionResult.Outcome.NOT_FOUND) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+    }
+
+    /**
+     * 按购物车计算金额，在一个短事务中插入订单和全部明细
+     */
+    private Orders saveOrder(OrdersSubmitDTO ordersSubmitDTO, Long userId, AddressBook addressBook,
+                             List<ShoppingCart> cart) {
+        List<OrderDetail> orderDetails = new ArrayList<>(cart.size());
+        BigDecimal amount = BigDecimal.ZERO;
+        for (ShoppingCart item : cart) {
+            orderDetails.add(OrderDetail.builder()
+                    .name(item.getName())
+                    .image(item.getImage())
+                    .dishId(item.getDishId())
+                    .setmealId(item.getSetmealId())
+                    .dishFlavor(item.getDishFlavor())
+                    .number(item.getNumber())
+                    .amount(item.getAmount())
+                    .build());
+            amount = amount.add(item.getAmount().multiply(BigDecimal.valueOf(item.getNumber())));
+        }
+        int packAmount = ordersSubmitDTO.getPackAmount() == null ? 0 : ordersSubmitDTO.getPackAmount();
+        amount = amount.add(BigDecimal.valueOf(packAmount));
+        if (ordersSubmitDTO.getAmount() != null && ordersSubmitDTO.getAmount().compareTo(amount) != 0) {
+            log.info("用户{}提交的订单金额{}与购物车计算结果{}不一致，以计算结果为准", userId,
+                    ordersSubmitDTO.getAmount(), amount);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Orders orders = Orders.builder()
+                .number(snowflakeIdGenerator.nextNumber())
+                .status(Orders.PENDING_PAYMENT)
+                .payStatus(Orders.UN_PAID)
+                .userId(userId)
+                .addressBookId(addressBook.getId())
+                .orderTime(now)
+                .payMethod(ordersSubmitDTO.getPayMethod())
+                .amount(amount)
+                .remark(ordersSubmitDTO.getRemark())
+                .phone(addressBook.getPhone())
+                .consignee(addressBook.getConsignee())
+                .address(fullAddress(addressBook))
+                .estimatedDeliveryTime(ordersSubmitDTO.getEstimatedDeliveryTime())
+                .deliveryStatus(ordersSubmitDTO.getDeliveryStatus())
+                .packAmount(packAmount)
+                .tablewareNumber(ordersSubmitDTO.getTablewareNumber() == null ? 0 : ordersSubmitDTO.getTablewareNumber())
+                .tablewareStatus(ordersSubmitDTO.getTablewareStatus())
+                .build();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderMapper.insert(orders);
+            orderDetails.forEach(orderDetail -> orderDetail.setOrderId(orders.getId()));
+            orderDetailMapper.insertBatch(orderDetails);
+        });
+        return orders;
+    }
+
+    /**
+     * 菜品摘要，格式为 菜品名*数量;
+     */
+    private static String orderDishes(List<OrderDetail> details) {
+        StringBuilder orderDishes = new StringBuilder();
+        for (OrderDetail detail : details) {
+            orderDishes.append(detail.getName()).append('*').append(detail.getNumber()).append(';');
+        }
+        return orderDishes.toString();
+    }
+
+    private static String fullAddress(AddressBook addressBook) {
+        StringBuilder address = new StringBuilder();
+        for (String part : new String[]{addressBook.getProvinceName(), addressBook.getCityName(),
+                addressBook.getDistrictName(), addressBook.getDetail()}) {
+            if (part != null) {
+                address.append(part);
+            }
+        }
+        return address.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.sky.service.impl;
+
+import com.sky.search.CatalogSearchIndex;
+import com.sky.service.SearchService;
+import com.sky.vo.SearchItemVO;
+import com.sky.vo.SearchResultVO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+@Service
+public class SearchServiceImpl implements SearchService {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private CatalogSearchIndex catalogSearchIndex;
+
+    /**
+     * 按名称或拼音首字母搜索菜品和套餐，直接查询进程内索引，不访问数据库
+     * @param keyword
+     * @param limit
+     * @return
+     */
+    public SearchResultVO search(String keyword, Integer limit) {
+        int size = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        return SearchResultVO.builder()
+                .dishes(toItems(catalogSearchIndex.searchDish(keyword, size), catalogSearchIndex::getDishName))
+                .setmeals(toItems(catalogSearchIndex.searchSetmeal(keyword, size), catalogSearchIndex::getSetmealName))
+                .build();
+    }
+
+    private List<SearchItemVO> toItems(List<Long> ids, Function<Long, String> nameOf) {
+        List<SearchItemVO> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            String name = nameOf.apply(id);
+            //查询期间被删除的记录跳过
+            if (name != null) {
+                items.add(new SearchItemVO(id, name));
+            }
+        }
+        return items;
+    }
+}
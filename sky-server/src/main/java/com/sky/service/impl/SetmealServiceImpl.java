@@ -1,21 +1,28 @@
 package com.sky.service.impl;
 
-import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
+import com.sky.annotation.ReadOnly;
+import com.sky.cache.CatalogCacheInvalidator;
+import com.sky.cache.CatalogChange;
+import com.sky.cache.PageTotalCache;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.dto.SetmealDTO;
 import com.sky.dto.SetmealPageQueryDTO;
-import com.sky.entity.Dish;
 import com.sky.entity.Setmeal;
 import com.sky.entity.SetmealDish;
+import com.sky.exception.DataNotFoundException;
 import com.sky.exception.DeletionNotAllowedException;
 import com.sky.exception.SetmealEnableFailedException;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealDishMapper;
 import com.sky.mapper.SetmealMapper;
+import com.sky.result.PageCursor;
 import com.sky.result.PageResult;
+import com.sky.result.SeekPageResult;
+import com.sky.search.CatalogSearchIndex;
 import com.sky.service.SetmealService;
+import com.sky.utils.BatchUtil;
+import com.sky.utils.RowDiff;
 import com.sky.vo.DishItemVO;
 import com.sky.vo.SetmealVO;
 import lombok.extern.slf4j.Slf4j;
@@ -23,8 +30,15 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @Slf4j
@@ -35,6 +49,12 @@ public class SetmealServiceImpl implements SetmealService {
     private SetmealDishMapper setmealDishMapper;
     @Autowired
     private DishMapper dishMapper;
+    @Autowired
+    private CatalogCacheInvalidator catalogCacheInvalidator;
+    @Autowired
+    private PageTotalCache pageTotalCache;
+    @Autowired
+    private CatalogSearchIndex catalogSearchIndex;
 
     /**
      * 新增套餐，同时需要保存套餐和菜品的关联关系
@@ -58,16 +78,44 @@ public class SetmealServiceImpl implements SetmealService {
 
         //保存套餐和菜品的关联关系
         setmealDishMapper.insertBatch(setmealDishes);
+
+        catalogSearchIndex.putSetmeal(setmealId, setmeal.getName());
+        catalogCacheInvalidator.invalidate(
+                CatalogChange.ofSetmealCategories(Collections.singletonList(setmeal.getCategoryId())));
     }
 
     @Override
+    @ReadOnly
     public PageResult pageQuery(SetmealPageQueryDTO setmealPageQueryDTO) {
+        //按名称过滤时优先使用名称索引命中的id
+        setmealPageQueryDTO.setIds(catalogSearchIndex.matchSetmealIds(setmealPageQueryDTO.getName()));
+        if (setmealPageQueryDTO.getIds() != null && setmealPageQueryDTO.getIds().isEmpty()) {
+            return new PageResult(0, new ArrayList<>());
+        }
         int pageNum = setmealPageQueryDTO.getPage();
         int pageSize = setmealPageQueryDTO.getPageSize();
 
-        PageHelper.startPage(pageNum, pageSize);
-        Page<SetmealVO> page = setmealMapper.pageQuery(setmealPageQueryDTO);
-        return new PageResult(page.getTotal(), page.getResult());
+        return pageTotalCache.query(PageTotalCache.SETMEAL,
+                Arrays.asList(setmealPageQueryDTO.getName(), setmealPageQueryDTO.getCategoryId(), setmealPageQueryDTO.getStatus()),
+                pageNum, pageSize, () -> setmealMapper.pageQuery(setmealPageQueryDTO));
+    }
+
+    /**
+     * 套餐游标分页查询
+     * @param setmealPageQueryDTO
+     * @return
+     */
+    @Override
+    @ReadOnly
+    public SeekPageResult seekQuery(SetmealPageQueryDTO setmealPageQueryDTO) {
+        setmealPageQueryDTO.setIds(catalogSearchIndex.matchSetmealIds(setmealPageQueryDTO.getName()));
+        if (setmealPageQueryDTO.getIds() != null && setmealPageQueryDTO.getIds().isEmpty()) {
+            return new SeekPageResult(new ArrayList<>(), null, false);
+        }
+        int pageSize = SeekPageResult.normalizePageSize(setmealPageQueryDTO.getPageSize());
+        PageCursor cursor = PageCursor.decode(setmealPageQueryDTO.getCursor());
+        List<SetmealVO> rows = setmealMapper.seekQuery(setmealPageQueryDTO, cursor, pageSize + 1);
+        return SeekPageResult.of(rows, pageSize, r -> new PageCursor(r.getCreateTime(), r.getId()));
     }
 
     /**
@@ -76,20 +124,26 @@ public class SetmealServiceImpl implements SetmealService {
      */
     @Transactional
     public void deleteBatch(List<Long> ids) {
-        ids.forEach(id -> {
-            Setmeal setmeal = setmealMapper.getById(id);
-            if(StatusConstant.ENABLE == setmeal.getStatus()){
+        List<List<Long>> chunks = BatchUtil.partition(ids, BatchUtil.MAX_IN_LIST_SIZE);
+        Set<Long> categoryIds = new LinkedHashSet<>();
+        for (List<Long> chunk : chunks) {
+            if (setmealMapper.countByIdsAndStatus(chunk, StatusConstant.ENABLE) > 0) {
                 //起售中的套餐不能删除
                 throw new DeletionNotAllowedException(MessageConstant.SETMEAL_ON_SALE);
             }
-        });
+            //删除前记录套餐所在的分类，用于精确失效缓存
+            categoryIds.addAll(setmealMapper.getCategoryIdsByIds(chunk));
+        }
 
-        ids.forEach(setmealId -> {
+        for (List<Long> chunk : chunks) {
             //删除套餐表中的数据
-            setmealMapper.deleteById(setmealId);
+            setmealMapper.deleteByIds(chunk);
             //删除套餐菜品关系表中的数据
-            setmealDishMapper.deleteBySetmealId(setmealId);
-        });
+            setmealDishMapper.deleteBySetmealIds(chunk);
+        }
+
+        catalogSearchIndex.removeSetmeals(ids);
+        catalogCacheInvalidator.invalidate(CatalogChange.ofSetmealCategories(categoryIds).withSetmeals(ids));
     }
 
 
@@ -100,14 +154,8 @@ public class SetmealServiceImpl implements SetmealService {
      * @return
      */
     public SetmealVO getByIdWithDish(Long id) {
-        Setmeal setmeal = setmealMapper.getById(id);
-        List<SetmealDish> setmealDishes = setmealDishMapper.getBySetmealId(id);
-
-        SetmealVO setmealVO = new SetmealVO();
-        BeanUtils.copyProperties(setmeal, setmealVO);
-        setmealVO.setSetmealDishes(setmealDishes);
-
-        return setmealVO;
+        //套餐基本信息和套餐菜品关系通过一条关联查询获取
+        return setmealMapper.getByIdWithDish(id);
     }
 
     /**
@@ -117,24 +165,64 @@ public class SetmealServiceImpl implements SetmealService {
      */
     @Transactional
     public void update(SetmealDTO setmealDTO) {
+        //修改前的套餐，用于判断哪些数据有变化；套餐移动分类时新旧分类的缓存都要失效
+        //二级缓存可能落后于数据库，修改前的数据直接查库
+        Setmeal oldSetmeal = setmealMapper.getByIdNoCache(setmealDTO.getId());
+        if (oldSetmeal == null) {
+            throw new DataNotFoundException(MessageConstant.SETMEAL_NOT_FOUND);
+        }
+
         Setmeal setmeal = new Setmeal();
         BeanUtils.copyProperties(setmealDTO, setmeal);
 
-        //1、修改套餐表，执行update
-        setmealMapper.update(setmeal);
+        //1、修改套餐表，套餐基本数据没有变化时不执行update
+        int setmealRows = isSetmealChanged(oldSetmeal, setmeal) ? setmealMapper.update(setmeal) : 0;
 
         //套餐id
         Long setmealId = setmealDTO.getId();
 
-        //2、删除套餐和菜品的关联关系，操作setmeal_dish表，执行delete
-        setmealDishMapper.deleteBySetmealId(setmealId);
-
+        //2、套餐菜品按菜品id与已有的关联关系对应，只新增、修改、删除有变化的关联关系；未提交套餐菜品（null）时关联关系不变
         List<SetmealDish> setmealDishes = setmealDTO.getSetmealDishes();
-        setmealDishes.forEach(setmealDish -> {
-            setmealDish.setSetmealId(setmealId);
-        });
-        //3、重新插入套餐和菜品的关联关系，操作setmeal_dish表，执行insert
-        setmealDishMapper.insertBatch(setmealDishes);
+        RowDiff<SetmealDish> diff = RowDiff.unchanged();
+        if (setmealDishes != null) {
+            setmealDishes.forEach(setmealDish -> setmealDish.setSetmealId(setmealId));
+            diff = RowDiff.of(setmealDishMapper.getBySetmealId(setmealId), setmealDishes,
+                    SetmealDish::getDishId, SetmealServiceImpl::isSameSetmealDish,
+                    SetmealDish::getId, SetmealDish::setId);
+        }
+        int inserted = diff.getInserts().isEmpty() ? 0 : setmealDishMapper.insertBatch(diff.getInserts());
+        int updated = diff.getUpdates().isEmpty() ? 0 : setmealDishMapper.updateBatch(diff.getUpdates());
+        int deleted = diff.getDeleteIds().isEmpty() ? 0 : setmealDishMapper.deleteByIds(diff.getDeleteIds());
+        log.info("修改套餐：id={}，套餐表影响行数：{}，套餐菜品新增：{}，修改：{}，删除：{}",
+                setmealId, setmealRows, inserted, updated, deleted);
+        if (setmealRows == 0 && diff.isEmpty()) {
+            return;
+        }
+
+        catalogSearchIndex.putSetmeal(setmealId, setmeal.getName());
+        catalogCacheInvalidator.invalidate(
+                CatalogChange.ofSetmealCategories(Arrays.asList(oldSetmeal.getCategoryId(), setmealDTO.getCategoryId()))
+                        .withSetmeals(Collections.singletonList(setmealId)));
+    }
+
+    /**
+     * 按update的规则（空值不修改）判断套餐基本数据是否有变化
+     */
+    private static boolean isSetmealChanged(Setmeal oldSetmeal, Setmeal setmeal) {
+        return (setmeal.getCategoryId() != null && !setmeal.getCategoryId().equals(oldSetmeal.getCategoryId()))
+                || (StringUtils.hasLength(setmeal.getName()) && !setmeal.getName().equals(oldSetmeal.getName()))
+                || (setmeal.getPrice() != null
+                        && (oldSetmeal.getPrice() == null || setmeal.getPrice().compareTo(oldSetmeal.getPrice()) != 0))
+                || (setmeal.getStatus() != null && !setmeal.getStatus().equals(oldSetmeal.getStatus()))
+                || (setmeal.getDescription() != null && !setmeal.getDescription().equals(oldSetmeal.getDescription()))
+                || (setmeal.getImage() != null && !setmeal.getImage().equals(oldSetmeal.getImage()));
+    }
+
+    private static boolean isSameSetmealDish(SetmealDish stored, SetmealDish submitted) {
+        return Objects.equals(stored.getName(), submitted.getName())
+                && Objects.equals(stored.getCopies(), submitted.getCopies())
+                && (stored.getPrice() == null ? submitted.getPrice() == null
+                        : submitted.getPrice() != null && stored.getPrice().compareTo(submitted.getPrice()) == 0);
     }
 
     /**
@@ -142,17 +230,17 @@ public class SetmealServiceImpl implements SetmealService {
      * @param status
      * @param id
      */
+    @Transactional
     public void startOrStop(Integer status, Long id) {
+        Setmeal oldSetmeal = setmealMapper.getByIdNoCache(id);
+        if (oldSetmeal == null) {
+            throw new DataNotFoundException(MessageConstant.SETMEAL_NOT_FOUND);
+        }
+
         //起售套餐时，判断套餐内是否有停售菜品，有停售菜品提示"套餐内包含未启售菜品，无法启售"
         if(status == StatusConstant.ENABLE){
-            //select a.* from dish a left join setmeal_dish b on a.id = b.dish_id where b.setmeal_id = ?
-            List<Dish> dishList = dishMapper.getBySetmealId(id);
-            if(dishList != null && dishList.size() > 0){
-                dishList.forEach(dish -> {
-                    if(StatusConstant.DISABLE == dish.getStatus()){
-                        throw new SetmealEnableFailedException(MessageConstant.SETMEAL_ENABLE_FAILED);
-                    }
-                });
+            if (dishMapper.countBySetmealIdAndStatus(id, StatusConstant.DISABLE) > 0) {
+                throw new SetmealEnableFailedException(MessageConstant.SETMEAL_ENABLE_FAILED);
             }
         }
 
@@ -161,6 +249,9 @@ public class SetmealServiceImpl implements SetmealService {
                 .status(status)
                 .build();
         setmealMapper.update(setmeal);
+
+        catalogCacheInvalidator.invalidate(
+                CatalogChange.ofSetmealCategories(Collections.singletonList(oldSetmeal.getCategoryId())));
     }
 
     /**
@@ -0,0 +1,89 @@
+package com.sky.service.impl;
+
+import com.sky.cart.CartStore;
+import com.sky.constant.MessageConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.context.BaseContext;
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.entity.ShoppingCart;
+import com.sky.exception.ShoppingCartBusinessException;
+import com.sky.idempotency.IdempotencyStore;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.service.ShoppingCartService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class ShoppingCartServiceImpl implements ShoppingCartService {
+
+    @Autowired
+    private CartStore cartStore;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    /**
+     * 商品加入购物车。
+     * 名称、单价、图片取自菜品、套餐的主键查询，命中MyBatis二级缓存时不访问数据库
+     * @param shoppingCartDTO
+     */
+    @Override
+    public void add(ShoppingCartDTO shoppingCartDTO) {
+        ShoppingCart item = ShoppingCart.builder()
+                .dishFlavor(shoppingCartDTO.getDishFlavor())
+                .createTime(LocalDateTime.now())
+                .build();
+        if (shoppingCartDTO.getDishId() != null) {
+            Dish dish = dishMapper.getById(shoppingCartDTO.getDishId());
+            if (dish == null || !StatusConstant.ENABLE.equals(dish.getStatus())) {
+                throw new ShoppingCartBusinessException(MessageConstant.CART_ITEM_UNAVAILABLE);
+            }
+            item.setDishId(dish.getId());
+            item.setName(dish.getName());
+            item.setImage(dish.getImage());
+            item.setAmount(dish.getPrice());
+        } else {
+            Setmeal setmeal = shoppingCartDTO.getSetmealId() == null ? null
+                    : setmealMapper.getById(shoppingCartDTO.getSetmealId());
+            if (setmeal == null || !StatusConstant.ENABLE.equals(setmeal.getStatus())) {
+                throw new ShoppingCartBusinessException(MessageConstant.CART_ITEM_UNAVAILABLE);
+            }
+            item.setSetmealId(setmeal.getId());
+            item.setDishFlavor(null);
+            item.setName(setmeal.getName());
+            item.setImage(setmeal.getImage());
+            item.setAmount(setmeal.getPrice());
+        }
+        cartStore.add(BaseContext.getCurrentId(), item);
+    }
+
+    @Override
+    public void sub(ShoppingCartDTO shoppingCartDTO) {
+        cartStore.sub(BaseContext.getCurrentId(), CartStore.field(shoppingCartDTO.getDishId(),
+                shoppingCartDTO.getSetmealId(), shoppingCartDTO.getDishFlavor()));
+    }
+
+    @Override
+    public List<ShoppingCart> list() {
+        return cartStore.list(BaseContext.getCurrentId());
+    }
+
+    @Override
+    public void clean() {
+        cartStore.clean(BaseContext.getCurrentId());
+    }
+
+    @Override
+    public String issueToken() {
+        return idempotencyStore.issue(BaseContext.getCurrentId());
+    }
+}
@@ -0,0 +1,121 @@
+package com.sky.websocket;
+
+import com.sky.properties.JwtProperties;
+import com.sky.properties.WebSocketProperties;
+import com.sky.utils.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.websocket.CloseReason;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理端订单推送的WebSocket端点，所有连接共用这一个实例。
+ * 连接时校验管理端jwt令牌；推送只把消息放入各连接的待发送队列，由异步发送完成，不会阻塞发布消息的线程
+ */
+@Component
+@Slf4j
+public class OrderPushEndpoint extends Endpoint {
+
+    @Autowired
+    private JwtProperties jwtProperties;
+    @Autowired
+    private WebSocketProperties properties;
+
+    private final Map<String, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+
+    //关闭连接需要发送关闭帧，对接收缓慢的客户端可能阻塞，放到单独的线程执行
+    private ExecutorService closer;
+
+    @PostConstruct
+    public void init() {
+        closer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("ws-close-"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        closer.shutdown();
+        try {
+            closer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        List<String> tokens = session.getRequestParameterMap().get("token");
+        try {
+            JwtUtil.parseJWT(jwtProperties.getAdminSecretKey(), tokens == null ? null : tokens.get(0));
+        } catch (Exception e) {
+            close(session, new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "未登录"));
+            return;
+        }
+        session.getAsyncRemote().setSendTimeout(properties.getSendTimeoutMillis());
+        outboxes.put(session.getId(),
+                new SessionOutbox(session, properties.getQueueCapacity(), properties.getMaxBatchSize()));
+        log.info("管理端WebSocket连接建立：{}，当前连接数{}", session.getId(), outboxes.size());
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        SessionOutbox outbox = outboxes.remove(session.getId());
+        if (outbox != null) {
+            outbox.markClosed();
+            log.info("管理端WebSocket连接关闭：{}，当前连接数{}", session.getId(), outboxes.size());
+        }
+    }
+
+    @Override
+    public void onError(Session session, Throwable thr) {
+        log.warn("管理端WebSocket连接{}出错：{}", session.getId(), thr.getMessage());
+    }
+
+    /**
+     * 把已序列化的消息推送给本节点的所有连接，队列已满的连接直接断开
+     * @param payload
+     */
+    public void broadcast(String payload) {
+        for (SessionOutbox outbox : outboxes.values()) {
+            if (!outbox.offer(payload)) {
+                drop(outbox);
+            }
+        }
+    }
+
+    public int getSessionCount() {
+        return outboxes.size();
+    }
+
+    private void drop(SessionOutbox outbox) {
+        Session session = outbox.getSession();
+        if (outboxes.remove(session.getId(), outbox)) {
+            outbox.markClosed();
+            log.warn("管理端WebSocket连接{}接收过慢，断开连接", session.getId());
+            close(session, new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "接收过慢"));
+        }
+    }
+
+    private void close(Session session, CloseReason reason) {
+        closer.execute(() -> {
+            try {
+                session.close(reason);
+            } catch (IOException | RuntimeException e) {
+                log.debug("关闭WebSocket连接{}失败：{}", session.getId(), e.getMessage());
+            }
+        });
+    }
+}
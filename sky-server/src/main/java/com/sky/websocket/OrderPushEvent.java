@@ -0,0 +1,29 @@
+package com.sky.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 推送给管理端的订单消息
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPushEvent implements Serializable {
+
+    public static final int NEW_ORDER = 1;
+    public static final int REMINDER = 2;
+
+    //消息类型 1来单提醒 2客户催单
+    private Integer type;
+
+    private Long orderId;
+
+    private String content;
+
+}
@@ -0,0 +1,23 @@
+package com.sky.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 跨节点订单推送消息，通过Redis发布订阅广播给所有节点
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPushMessage implements Serializable {
+
+    //发出消息的节点id，节点收到自己发出的消息时直接忽略
+    private String nodeId;
+
+    //已序列化的OrderPushEvent，各节点原样转发给本节点的连接
+    private String payload;
+
+}
@@ -0,0 +1,38 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 监听其他节点发出的订单推送消息，推送给本节点的管理端连接
+ */
+@Slf4j
+public class OrderPushMessageListener implements MessageListener {
+
+    private final OrderPushService orderPushService;
+
+    public OrderPushMessageListener(OrderPushService orderPushService) {
+        this.orderPushService = orderPushService;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        OrderPushMessage pushMessage;
+        try {
+            pushMessage = JSON.parseObject(body, OrderPushMessage.class);
+        } catch (Exception e) {
+            log.warn("无法解析订单推送消息：{}", body);
+            return;
+        }
+        if (pushMessage == null || pushMessage.getPayload() == null
+                || orderPushService.getNodeId().equals(pushMessage.getNodeId())) {
+            return;
+        }
+        orderPushService.pushLocal(pushMessage.getPayload());
+    }
+}
@@ -0,0 +1,55 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.properties.WebSocketProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * 向管理端推送订单消息。
+ * 消息只序列化一次，先推送给本节点的连接，再通过Redis发布给其他节点，由其他节点推送给各自的连接
+ */
+@Component
+@Slf4j
+public class OrderPushService {
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private OrderPushEndpoint orderPushEndpoint;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private WebSocketProperties properties;
+
+    /**
+     * 推送消息，推送失败只记录日志，不影响业务操作
+     * @param event
+     */
+    public void push(OrderPushEvent event) {
+        String payload = JSON.toJSONString(event);
+        orderPushEndpoint.broadcast(payload);
+        try {
+            stringRedisTemplate.convertAndSend(properties.getChannel(),
+                    JSON.toJSONString(new OrderPushMessage(nodeId, payload)));
+        } catch (RuntimeException e) {
+            log.warn("发布订单推送消息失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 推送其他节点转发的消息
+     * @param payload
+     */
+    void pushLocal(String payload) {
+        orderPushEndpoint.broadcast(payload);
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,101 @@
+package com.sky.websocket;
+
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个连接的待发送队列。
+ * 同一时刻只有一帧在异步发送，发送期间到达的消息留在队列中，上一帧发送完成后合并成一个JSON数组一次发出，
+ * 突发的大量消息因此只占用少量帧。入队不阻塞，队列满说明客户端接收过慢，由调用方断开连接
+ */
+class SessionOutbox implements SendHandler {
+
+    private final Session session;
+
+    private final BlockingQueue<String> queue;
+
+    private final int maxBatchSize;
+
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    SessionOutbox(Session session, int capacity, int maxBatchSize) {
+        this.session = session;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    Session getSession() {
+        return session;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void markClosed() {
+        closed = true;
+        queue.clear();
+    }
+
+    /**
+     * 加入一条已序列化的消息
+     * @param payload
+     * @return 队列已满或连接已关闭时返回false
+     */
+    boolean offer(String payload) {
+        if (closed || !queue.offer(payload)) {
+            return false;
+        }
+        drain();
+        return true;
+    }
+
+    @Override
+    public void onResult(SendResult result) {
+        sending.set(false);
+        if (!result.isOK()) {
+            markClosed();
+            return;
+        }
+        drain();
+    }
+
+    private void drain() {
+        //释放发送标记后可能有新消息入队，因此循环检查，保证不会有消息滞留在队列中
+        while (!closed && !queue.isEmpty() && sending.compareAndSet(false, true)) {
+            List<String> batch = new ArrayList<>(Math.min(queue.size(), maxBatchSize));
+            queue.drainTo(batch, maxBatchSize);
+            if (batch.isEmpty()) {
+                sending.set(false);
+                continue;
+            }
+            try {
+                session.getAsyncRemote().sendText(frame(batch), this);
+            } catch (RuntimeException e) {
+                sending.set(false);
+                markClosed();
+            }
+            return;
+        }
+    }
+
+    private static String frame(List<String> batch) {
+        StringBuilder frame = new StringBuilder(batch.size() * 64);
+        frame.append('[');
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                frame.append(',');
+            }
+            frame.append(batch.get(i));
+        }
+        return frame.append(']').toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OrderEventTest {
+
+    private static final List<Integer> STATUSES = Arrays.asList(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED,
+            Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, Orders.CANCELLED);
+
+    /**
+     * 每个事件允许的起始状态与业务规则一致，其余状态一律拒绝
+     */
+    @Test
+    public void onlyLegalTransitionsAreAllowed() {
+        Map<OrderEvent, Set<Integer>> legal = new EnumMap<>(OrderEvent.class);
+        legal.put(OrderEvent.PAY_SUCCESS, set(Orders.PENDING_PAYMENT));
+        legal.put(OrderEvent.CONFIRM, set(Orders.TO_BE_CONFIRMED));
+        legal.put(OrderEvent.REJECT, set(Orders.TO_BE_CONFIRMED));
+        legal.put(OrderEvent.USER_CANCEL, set(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED));
+        legal.put(OrderEvent.ADMIN_CANCEL, set(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, Orders.CONFIRMED,
+                Orders.DELIVERY_IN_PROGRESS));
+        legal.put(OrderEvent.PAYMENT_TIMEOUT, set(Orders.PENDING_PAYMENT));
+        legal.put(OrderEvent.DELIVER, set(Orders.CONFIRMED));
+        legal.put(OrderEvent.COMPLETE, set(Orders.DELIVERY_IN_PROGRESS));
+        assertEquals(OrderEvent.values().length, legal.size());
+
+        for (OrderEvent event : OrderEvent.values()) {
+            for (Integer status : STATUSES) {
+                assertEquals(legal.get(event).contains(status), event.canFireFrom(status), event + " from " + status);
+            }
+            assertEquals(false, event.canFireFrom(null));
+        }
+    }
+
+    /**
+     * 已完成、已取消是终态，不允许任何事件
+     */
+    @Test
+    public void terminalStatusesAcceptNoEvent() {
+        for (OrderEvent event : OrderEvent.values()) {
+            assertEquals(false, event.canFireFrom(Orders.COMPLETED), event.name());
+            assertEquals(false, event.canFireFrom(Orders.CANCELLED), event.name());
+        }
+    }
+
+    /**
+     * 状态只向前推进：事件到达的状态不是它自己的起始状态
+     */
+    @Test
+    public void eventsNeverLoopBack() {
+        for (OrderEvent event : OrderEvent.values()) {
+            assertEquals(false, event.canFireFrom(event.getTargetStatus()), event.name());
+        }
+    }
+
+    private static Set<Integer> set(Integer... statuses) {
+        return new HashSet<>(Arrays.asList(statuses));
+    }
+}
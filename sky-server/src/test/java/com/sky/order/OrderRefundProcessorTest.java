@@ -0,0 +1,90 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderRefundProperties;
+import com.sky.utils.WeChatPayUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OrderRefundProcessorTest {
+
+    private static final String PENDING_KEY = new OrderRefundProperties().getPendingKey();
+
+    private OrderMapper orderMapper;
+    private WeChatPayUtil weChatPayUtil;
+    private ZSetOperations<String, String> zSetOperations;
+    private OrderRefundProcessor processor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        orderMapper = Mockito.mock(OrderMapper.class);
+        weChatPayUtil = Mockito.mock(WeChatPayUtil.class);
+        zSetOperations = Mockito.mock(ZSetOperations.class);
+        StringRedisTemplate stringRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        processor = new OrderRefundProcessor();
+        ReflectionTestUtils.setField(processor, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(processor, "weChatPayUtil", weChatPayUtil);
+        ReflectionTestUtils.setField(processor, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(processor, "properties", new OrderRefundProperties());
+    }
+
+    @Test
+    public void refundsCancelledOrderAndClearsMarker() throws Exception {
+        when(orderMapper.getById(1L)).thenReturn(order(Orders.CANCELLED, Orders.REFUND));
+        when(weChatPayUtil.refund(any(), any(), any(), any())).thenReturn("{}");
+
+        assertTrue(processor.refund(1L));
+
+        verify(weChatPayUtil).refund("N1", "N1", new BigDecimal("25.50"), new BigDecimal("25.50"));
+        verify(zSetOperations).remove(PENDING_KEY, "1");
+    }
+
+    @Test
+    public void failedRefundKeepsMarkerForRetry() throws Exception {
+        when(orderMapper.getById(1L)).thenReturn(order(Orders.CANCELLED, Orders.REFUND));
+        when(weChatPayUtil.refund(any(), any(), any(), any())).thenThrow(new RuntimeException("timeout"));
+
+        assertFalse(processor.refund(1L));
+
+        verify(zSetOperations).add(eq(PENDING_KEY), eq("1"), anyDouble());
+        verify(zSetOperations, never()).remove(anyString(), any());
+    }
+
+    /**
+     * 登记后状态转换没有发生（订单仍是已支付）时只移除登记，不申请退款
+     */
+    @Test
+    public void markerWithoutRefundStatusIsDropped() throws Exception {
+        when(orderMapper.getById(1L)).thenReturn(order(Orders.TO_BE_CONFIRMED, Orders.PAID));
+
+        assertTrue(processor.refund(1L));
+
+        verify(weChatPayUtil, never()).refund(any(), any(), any(), any());
+        verify(zSetOperations).remove(PENDING_KEY, "1");
+    }
+
+    private static Orders order(Integer status, Integer payStatus) {
+        return Orders.builder().id(1L).number("N1").amount(new BigDecimal("25.50"))
+                .status(status).payStatus(payStatus).build();
+    }
+}
@@ -0,0 +1,244 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * 状态机的转换规则和并发竞争。OrderMapper用内存中的订单表代替，条件更新对单行是原子的，与数据库的行为一致
+ */
+public class OrderStateMachineTest {
+
+    private static final int ORDERS = 2000;
+    private static final int THREADS = 16;
+
+    private final Map<Long, Orders> table = new ConcurrentHashMap<>();
+
+    private OrderStateMachine stateMachine;
+
+    @BeforeEach
+    public void setUp() {
+        OrderMapper orderMapper = Mockito.mock(OrderMapper.class, Mockito.withSettings().stubOnly());
+        when(orderMapper.getStatusById(anyLong())).thenAnswer(invocation -> {
+            Orders row = table.get(invocation.<Long>getArgument(0));
+            if (row == null) {
+                return null;
+            }
+            synchronized (row) {
+                return Orders.builder().id(row.getId()).userId(row.getUserId())
+                        .status(row.getStatus()).payStatus(row.getPayStatus()).build();
+            }
+        });
+        when(orderMapper.updateStatus(any(), any())).thenAnswer(invocation -> {
+            Orders change = invocation.getArgument(0);
+            return update(change.getId(), change, invocation.getArgument(1));
+        });
+        when(orderMapper.updateStatusBatch(anyList(), any(), any())).thenAnswer(invocation -> {
+            int rows = 0;
+            for (Long id : invocation.<List<Long>>getArgument(0)) {
+                rows += update(id, invocation.getArgument(1), invocation.getArgument(2));
+            }
+            return rows;
+        });
+
+        stateMachine = new OrderStateMachine();
+        ReflectionTestUtils.setField(stateMachine, "orderMapper", orderMapper);
+    }
+
+    @Test
+    public void appliesLegalTransitionAndMarksRefundForPaidOrder() {
+        insert(1L, Orders.TO_BE_CONFIRMED, Orders.PAID);
+
+        TransitionResult result = stateMachine.fire(1L, OrderEvent.REJECT, "售罄");
+
+        assertTrue(result.isApplied());
+        assertTrue(result.isRefundRequired());
+        assertEquals(Orders.TO_BE_CONFIRMED, result.getFromStatus());
+        assertEquals(Orders.CANCELLED, table.get(1L).getStatus());
+        assertEquals(Orders.REFUND, table.get(1L).getPayStatus());
+        assertEquals("售罄", table.get(1L).getRejectionReason());
+    }
+
+    @Test
+    public void cancellingUnpaidOrderNeedsNoRefund() {
+        insert(1L, Orders.PENDING_PAYMENT, Orders.UN_PAID);
+
+        TransitionResult result = stateMachine.fire(1L, OrderEvent.USER_CANCEL);
+
+        assertTrue(result.isApplied());
+        assertFalse(result.isRefundRequired());
+        assertEquals(Orders.UN_PAID, table.get(1L).getPayStatus());
+        assertNotNull(table.get(1L).getCancelReason());
+    }
+
+    @Test
+    public void illegalTransitionIsRejectedWithoutUpdate() {
+        insert(1L, Orders.CONFIRMED, Orders.PAID);
+
+        TransitionResult result = stateMachine.fire(1L, OrderEvent.USER_CANCEL);
+
+        assertEquals(TransitionResult.Outcome.REJECTED, result.getOutcome());
+        assertEquals(Orders.CONFIRMED, result.getCurrentStatus());
+        assertEquals(Orders.CONFIRMED, table.get(1L).getStatus());
+    }
+
+    @Test
+    public void missingOrderIsNotFound() {
+        assertEquals(TransitionResult.Outcome.NOT_FOUND, stateMachine.fire(1L, OrderEvent.CONFIRM).getOutcome());
+    }
+
+    @Test
+    public void batchOnlyTouchesOrdersStillInSourceStatus() {
+        insert(1L, Orders.PENDING_PAYMENT, Orders.UN_PAID);
+        insert(2L, Orders.TO_BE_CONFIRMED, Orders.PAID);
+        insert(3L, Orders.PENDING_PAYMENT, Orders.UN_PAID);
+
+        int applied = stateMachine.fireBatch(Arrays.asList(1L, 2L, 3L, 4L), OrderEvent.PAYMENT_TIMEOUT);
+
+        assertEquals(2, applied);
+        assertEquals(Orders.CANCELLED, table.get(1L).getStatus());
+        assertEquals(Orders.TO_BE_CONFIRMED, table.get(2L).getStatus());
+        assertEquals(Orders.CANCELLED, table.get(3L).getStatus());
+    }
+
+    /**
+     * 每个待接单的已支付订单同时收到接单、拒单、用户取消：恰好一个成功，其余得到REJECTED，
+     * 最终状态与胜出的事件一致，胜出的是取消类事件时标记退款
+     */
+    @Test
+    public void exactlyOneOfConflictingEventsWins() throws Exception {
+        for (long id = 1; id <= ORDERS; id++) {
+            insert(id, Orders.TO_BE_CONFIRMED, Orders.PAID);
+        }
+        List<OrderEvent> events = Arrays.asList(OrderEvent.CONFIRM, OrderEvent.REJECT, OrderEvent.USER_CANCEL);
+        List<TransitionResult> results = race(events);
+
+        Map<Long, List<TransitionResult>> applied = new ConcurrentHashMap<>();
+        for (TransitionResult result : results) {
+            if (result.isApplied()) {
+                applied.computeIfAbsent(result.getOrderId(), id -> new ArrayList<>()).add(result);
+            } else {
+                assertEquals(TransitionResult.Outcome.REJECTED, result.getOutcome());
+            }
+        }
+        assertEquals(ORDERS, applied.size());
+        for (long id = 1; id <= ORDERS; id++) {
+            List<TransitionResult> winners = applied.get(id);
+            assertEquals(1, winners.size(), "订单" + id);
+            TransitionResult winner = winners.get(0);
+            Orders row = table.get(id);
+            assertEquals(winner.getEvent().getTargetStatus(), row.getStatus());
+            boolean cancelled = winner.getEvent() != OrderEvent.CONFIRM;
+            assertEquals(cancelled, winner.isRefundRequired());
+            assertEquals(cancelled ? Orders.REFUND : Orders.PAID, row.getPayStatus());
+        }
+    }
+
+    /**
+     * 商家取消与派送竞争：派送先提交时商家取消的条件更新落空，重新读取后从派送中状态重试成功
+     */
+    @Test
+    public void losingUpdateRetriesFromNewStatus() throws Exception {
+        for (long id = 1; id <= ORDERS; id++) {
+            insert(id, Orders.CONFIRMED, Orders.PAID);
+        }
+        List<TransitionResult> results = race(Arrays.asList(OrderEvent.DELIVER, OrderEvent.ADMIN_CANCEL));
+
+        for (TransitionResult result : results) {
+            if (result.getEvent() == OrderEvent.ADMIN_CANCEL) {
+                assertTrue(result.isApplied(), "订单" + result.getOrderId());
+            }
+        }
+        for (long id = 1; id <= ORDERS; id++) {
+            assertEquals(Orders.CANCELLED, table.get(id).getStatus());
+            assertEquals(Orders.REFUND, table.get(id).getPayStatus());
+        }
+    }
+
+    /**
+     * 对每个订单同时触发全部事件，所有任务在同一时刻开始
+     */
+    private List<TransitionResult> race(List<OrderEvent> events) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Callable<TransitionResult>> tasks = new ArrayList<>();
+            for (long id = 1; id <= ORDERS; id++) {
+                long orderId = id;
+                for (OrderEvent event : events) {
+                    tasks.add(() -> {
+                        start.await();
+                        return stateMachine.fire(orderId, event);
+                    });
+                }
+            }
+            Collections.shuffle(tasks);
+            List<Future<TransitionResult>> futures = new ArrayList<>();
+            for (Callable<TransitionResult> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            List<TransitionResult> results = new ArrayList<>();
+            for (Future<TransitionResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void insert(Long id, Integer status, Integer payStatus) {
+        table.put(id, Orders.builder().id(id).userId(1L).status(status).payStatus(payStatus).build());
+    }
+
+    /**
+     * update orders set ... where id = ? and status = fromStatus
+     */
+    private int update(Long id, Orders change, Integer fromStatus) {
+        Orders row = table.get(id);
+        if (row == null) {
+            return 0;
+        }
+        synchronized (row) {
+            if (!row.getStatus().equals(fromStatus)) {
+                return 0;
+            }
+            row.setStatus(change.getStatus());
+            if (change.getPayStatus() != null) {
+                row.setPayStatus(change.getPayStatus());
+            }
+            if (change.getCancelReason() != null) {
+                row.setCancelReason(change.getCancelReason());
+            }
+            if (change.getRejectionReason() != null) {
+                row.setRejectionReason(change.getRejectionReason());
+            }
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.sky.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTest {
+
+    private static final long TICK = 1000;
+    private static final int WHEEL_SIZE = 60;
+    private static final int LEVELS = 3;
+
+    @Test
+    public void firesAtDeadlineNotBefore() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, LEVELS, 0);
+        assertTrue(wheel.add("a", 5_000));
+
+        assertTrue(wheel.advance(4_999).isEmpty());
+        assertEquals(Collections.singletonList("a"), wheel.advance(5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void rejectsExpiredAndOutOfRangeDeadlines() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, LEVELS, 10_000);
+        assertFalse(wheel.add("past", 9_000));
+        assertFalse(wheel.add("now", 10_000));
+        //三层共60*60*60个tick
+        assertFalse(wheel.add("far", 10_000 + TICK * WHEEL_SIZE * WHEEL_SIZE * WHEEL_SIZE + TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * 高层格子里的任务降级后仍在准确的tick到期
+     */
+    @Test
+    public void cascadedEntriesFireOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, LEVELS, 0);
+        wheel.add("level1", 61_000);
+        wheel.add("level2", 3_601_000);
+
+        assertTrue(wheel.advance(60_000).isEmpty());
+        assertEquals(Collections.singletonList("level1"), wheel.advance(61_000));
+        assertTrue(wheel.advance(3_600_000).isEmpty());
+        assertEquals(Collections.singletonList("level2"), wheel.advance(3_601_000));
+    }
+
+    /**
+     * 随机截止时间、随机步长推进：每个任务恰好在其截止tick所在的那次推进中到期，不早不晚、不丢不重
+     */
+    @Test
+    public void randomDeadlinesNeverFireEarlyOrLate() {
+        long start = 1_700_000_000_000L;
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, LEVELS, start);
+        Random random = new Random(7);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        long range = TICK * WHEEL_SIZE * WHEEL_SIZE * 3;
+        for (int i = 0; i < 100_000; i++) {
+            long deadline = start + TICK + (long) (random.nextDouble() * range);
+            if (wheel.add(i, deadline)) {
+                deadlines.put(i, deadline / TICK);
+            }
+        }
+        assertEquals(deadlines.size(), wheel.size());
+
+        long now = start;
+        int fired = 0;
+        while (fired < deadlines.size()) {
+            long previousTick = now / TICK;
+            now += TICK * (1 + random.nextInt(120));
+            List<Integer> expired = wheel.advance(now);
+            for (Integer item : expired) {
+                long deadlineTick = deadlines.get(item);
+                assertTrue(deadlineTick > previousTick && deadlineTick <= now / TICK, "任务" + item);
+            }
+            fired += expired.size();
+        }
+        assertEquals(deadlines.size(), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void sameDeadlineFiresTogether() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, LEVELS, 0);
+        for (Integer item : Arrays.asList(1, 2, 3)) {
+            wheel.add(item, 90_500);
+        }
+        List<Integer> expired = wheel.advance(90_000);
+        assertEquals(3, expired.size());
+    }
+}
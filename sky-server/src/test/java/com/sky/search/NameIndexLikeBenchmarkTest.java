@@ -0,0 +1,128 @@
+package com.sky.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 名称索引与 like '%关键字%' 查询的对比。
+ * 在本地MySQL中按dish表结构建一张临时表，写入10万个随机菜品名称，分别用与DishMapper.xml相同的
+ * name like concat('%',?,'%') 条件和NameIndex查询同一批关键字，比较结果并输出平均耗时，结束后删除临时表。
+ * 需要数据库，默认跳过，运行方式：
+ * mvn test -pl sky-server -am -Dtest=NameIndexLikeBenchmarkTest -DfailIfNoTests=false
+ *     -Dsky.benchmark.jdbc-url="jdbc:mysql://localhost:3306/sky_take_out?useSSL=false&allowPublicKeyRetrieval=true"
+ *     -Dsky.benchmark.username=root -Dsky.benchmark.password=123456
+ */
+@EnabledIfSystemProperty(named = "sky.benchmark.jdbc-url", matches = ".+")
+public class NameIndexLikeBenchmarkTest {
+
+    private static final String TABLE = "dish_like_benchmark";
+    private static final int ROWS = 100_000;
+    private static final int QUERIES = 200;
+    private static final String CHARS = "宫保鸡丁鱼香肉丝麻婆豆腐红烧排骨水煮牛肉酸菜鱼米饭套餐单人双人干锅土豆回锅青椒炒蛋番茄";
+
+    @Test
+    public void compareWithLike() throws SQLException {
+        String url = System.getProperty("sky.benchmark.jdbc-url");
+        String username = System.getProperty("sky.benchmark.username", "root");
+        String password = System.getProperty("sky.benchmark.password", "");
+        Random random = new Random(42);
+
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            Map<Long, String> names = prepareTable(connection, random);
+            NameIndex index = new NameIndex();
+            long buildStart = System.nanoTime();
+            index.rebuild(names);
+            long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+            List<String> keywords = new ArrayList<>(QUERIES);
+            for (int i = 0; i < QUERIES; i++) {
+                keywords.add(randomName(random, 1 + random.nextInt(3)));
+            }
+
+            long likeNanos = 0;
+            long indexNanos = 0;
+            try (PreparedStatement like = connection.prepareStatement(
+                    "select id, name from " + TABLE + " where name like concat('%',?,'%')")) {
+                for (String keyword : keywords) {
+                    long start = System.nanoTime();
+                    Set<Long> likeIds = new HashSet<>();
+                    Map<Long, String> likeNames = new HashMap<>();
+                    like.setString(1, keyword);
+                    try (ResultSet rs = like.executeQuery()) {
+                        while (rs.next()) {
+                            likeIds.add(rs.getLong(1));
+                            likeNames.put(rs.getLong(1), rs.getString(2));
+                        }
+                    }
+                    likeNanos += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    Set<Long> indexIds = new HashSet<>(index.match(keyword, Integer.MAX_VALUE));
+                    indexNanos += System.nanoTime() - start;
+
+                    //索引另外按拼音首字母匹配，只会比like多，不会少
+                    assertTrue(indexIds.containsAll(likeIds), keyword);
+                }
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("drop table if exists " + TABLE);
+                }
+            }
+
+            System.out.printf("rows=%d queries=%d indexBuild=%dms likeAvg=%.3fms indexAvg=%.3fms%n",
+                    ROWS, QUERIES, buildMillis, likeNanos / 1e6 / QUERIES, indexNanos / 1e6 / QUERIES);
+        }
+    }
+
+    private static Map<Long, String> prepareTable(Connection connection, Random random) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + TABLE);
+            statement.execute("create table " + TABLE + " like dish");
+        }
+        Map<Long, String> names = new HashMap<>(ROWS * 2);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into " + TABLE + " (id, name, category_id, price, status) values (?, ?, 1, 10, 1)")) {
+            for (long id = 1; id <= ROWS; id++) {
+                //名称唯一，加上id后缀
+                String name = randomName(random, 2 + random.nextInt(5)) + id;
+                names.put(id, name);
+                insert.setLong(1, id);
+                insert.setString(2, name);
+                insert.addBatch();
+                if (id % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return names;
+    }
+
+    private static String randomName(Random random, int length) {
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            name.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.sky.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NameIndexTest {
+
+    private static final String CHARS = "宫保鸡丁鱼香肉丝麻婆豆腐红烧排骨水煮牛肉酸菜鱼米饭套餐单人双人";
+
+    @Test
+    public void searchMatchesContainsAndPinyinInitials() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "宫保鸡丁");
+        index.put(2L, "鸡丁盖饭");
+        index.put(3L, "水煮鱼");
+
+        assertEquals(Arrays.asList(2L, 1L), index.search("鸡丁", 10));
+        assertEquals(Collections.singletonList(1L), index.search("gbjd", 10));
+        assertEquals(Collections.singletonList(3L), index.search("鱼", 10));
+        assertTrue(index.search("牛肉", 10).isEmpty());
+    }
+
+    @Test
+    public void putReplacesAndRemoveDeletes() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "宫保鸡丁");
+        index.put(1L, "鱼香肉丝");
+        assertTrue(index.search("鸡丁", 10).isEmpty());
+        assertEquals(Collections.singletonList(1L), index.search("肉丝", 10));
+
+        index.remove(1L);
+        assertTrue(index.search("肉丝", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void matchReturnsNullWhenOverMaxSize() {
+        NameIndex index = new NameIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, "套餐" + id);
+        }
+        assertEquals(5, index.match("套餐", 5).size());
+        assertNull(index.match("套餐", 4));
+    }
+
+    /**
+     * 随机名称上与 like '%关键字%' 的语义（String.contains）逐一比对
+     */
+    @Test
+    public void matchAgreesWithContainsOnRandomNames() {
+        Random random = new Random(42);
+        Map<Long, String> names = new HashMap<>();
+        for (long id = 1; id <= 5000; id++) {
+            names.put(id, randomName(random, 2 + random.nextInt(6)));
+        }
+        NameIndex index = new NameIndex();
+        index.rebuild(names);
+
+        for (int i = 0; i < 500; i++) {
+            String keyword = randomName(random, 1 + random.nextInt(3));
+            Set<Long> expected = new HashSet<>();
+            names.forEach((id, name) -> {
+                if (name.contains(keyword)) {
+                    expected.add(id);
+                }
+            });
+            Set<Long> actual = new HashSet<>(index.match(keyword, Integer.MAX_VALUE));
+            //拼音首字母只会多命中，不会漏掉名称包含关键字的
+            assertTrue(actual.containsAll(expected), keyword);
+            actual.removeAll(expected);
+            for (Long id : actual) {
+                assertTrue(!names.get(id).contains(keyword), keyword);
+            }
+        }
+    }
+
+    /**
+     * 重建期间并发查询不会看到空索引
+     */
+    @Test
+    public void rebuildNeverExposesEmptyIndex() throws InterruptedException {
+        Map<Long, String> names = new HashMap<>();
+        for (long id = 1; id <= 20000; id++) {
+            names.put(id, "宫保鸡丁" + id);
+        }
+        NameIndex index = new NameIndex();
+        index.rebuild(names);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger emptyReads = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                List<Long> result = index.search("鸡丁", 1);
+                if (result.isEmpty()) {
+                    emptyReads.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 10; i++) {
+            index.rebuild(names);
+        }
+        running.set(false);
+        reader.join();
+        assertEquals(0, emptyReads.get());
+    }
+
+    private static String randomName(Random random, int length) {
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            name.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        return name.toString();
+    }
+}
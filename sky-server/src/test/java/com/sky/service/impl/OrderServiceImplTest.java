@@ -0,0 +1,291 @@
+package com.sky.service.impl;
+
+import com.sky.cart.CartStore;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.entity.AddressBook;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.entity.ShoppingCart;
+import com.sky.exception.AddressBookBusinessException;
+import com.sky.exception.OrderBusinessException;
+import com.sky.exception.ShoppingCartBusinessException;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.order.OrderDeadlineScheduler;
+import com.sky.properties.WebSocketProperties;
+import com.sky.utils.SnowflakeIdGenerator;
+import com.sky.vo.OrderSubmitVO;
+import com.sky.websocket.OrderPushEvent;
+import com.sky.websocket.OrderPushService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderServiceImplTest {
+
+    private static final Long USER_ID = 10L;
+
+    @Mock
+    private OrderMapper orderMapper;
+    @Mock
+    private OrderDetailMapper orderDetailMapper;
+    @Mock
+    private AddressBookMapper addressBookMapper;
+    @Mock
+    private CartStore cartStore;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private OrderDeadlineScheduler orderDeadlineScheduler;
+    @Mock
+    private OrderPushService orderPushService;
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Spy
+    private WebSocketProperties webSocketProperties = new WebSocketProperties();
+    @Spy
+    private SnowflakeIdGenerator snowflakeIdGenerator = new SnowflakeIdGenerator(1);
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    //模拟Redis的 SET key value NX EX
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+
+    //模拟的事务是否正在执行
+    private final AtomicBoolean inTransaction = new AtomicBoolean();
+
+    @BeforeEach
+    public void setUp() {
+        BaseContext.setCurrentId(USER_ID);
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(invocation -> redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        lenient().doAnswer(invocation -> {
+            inTransaction.set(true);
+            try {
+                invocation.<Consumer<TransactionStatus>>getArgument(0).accept(new SimpleTransactionStatus());
+            } finally {
+                inTransaction.set(false);
+            }
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        BaseContext.removeCurrentId();
+    }
+
+    @Test
+    public void reminderPushesForOpenOrder() {
+        when(orderMapper.getById(1L)).thenReturn(order(Orders.TO_BE_CONFIRMED));
+
+        orderService.reminder(1L);
+
+        verify(valueOperations).setIfAbsent(eq("sky:order:reminder:1"), eq("1"), eq(Duration.ofSeconds(60)));
+        verify(orderPushService).push(any(OrderPushEvent.class));
+    }
+
+    @Test
+    public void reminderRejectedForClosedOrders() {
+        for (Integer status : new Integer[]{Orders.PENDING_PAYMENT, Orders.DELIVERY_IN_PROGRESS,
+                Orders.COMPLETED, Orders.CANCELLED}) {
+            when(orderMapper.getById(1L)).thenReturn(order(status));
+            assertThrows(OrderBusinessException.class, () -> orderService.reminder(1L), "状态" + status);
+        }
+        verify(orderPushService, never()).push(any());
+    }
+
+    @Test
+    public void reminderRejectedForOtherUsersOrder() {
+        Orders orders = order(Orders.CONFIRMED);
+        orders.setUserId(USER_ID + 1);
+        when(orderMapper.getById(1L)).thenReturn(orders);
+
+        assertThrows(OrderBusinessException.class, () -> orderService.reminder(1L));
+        verify(orderPushService, never()).push(any());
+    }
+
+    /**
+     * 同一订单并发催单，间隔时间内只推送一次，其余请求得到业务异常
+     */
+    @Test
+    public void concurrentRemindersAreThrottledPerOrder() throws Exception {
+        when(orderMapper.getById(any())).thenAnswer(invocation -> {
+            Orders orders = order(Orders.CONFIRMED);
+            orders.setId(invocation.getArgument(0));
+            return orders;
+        });
+        AtomicInteger pushes = new AtomicInteger();
+        doAnswer(invocation -> pushes.incrementAndGet()).when(orderPushService).push(any());
+
+        int threads = 16;
+        int requestsPerOrder = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger throttled = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long orderId = 1; orderId <= 2; orderId++) {
+                long id = orderId;
+                for (int i = 0; i < requestsPerOrder; i++) {
+                    futures.add(executor.submit(() -> {
+                        BaseContext.setCurrentId(USER_ID);
+                        start.await();
+                        try {
+                            orderService.reminder(id);
+                        } catch (OrderBusinessException e) {
+                            throttled.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, pushes.get());
+        assertEquals(2 * requestsPerOrder - 2, throttled.get());
+    }
+
+    /**
+     * 金额按购物车计算，订单和全部明细在同一个事务中写入，明细只用一条多行insert
+     */
+    @Test
+    public void submitInsertsOrderAndDetailsInOneTransaction() {
+        List<ShoppingCart> cart = cart();
+        when(addressBookMapper.getByIdAndUserId(5L, USER_ID)).thenReturn(addressBook());
+        when(cartStore.claim(USER_ID)).thenReturn(cart);
+        doAnswer(invocation -> {
+            assertTrue(inTransaction.get());
+            invocation.<Orders>getArgument(0).setId(100L);
+            return null;
+        }).when(orderMapper).insert(any());
+        List<List<OrderDetail>> batches = new ArrayList<>();
+        when(orderDetailMapper.insertBatch(any())).thenAnswer(invocation -> {
+            assertTrue(inTransaction.get());
+            batches.add(new ArrayList<>(invocation.getArgument(0)));
+            return cart.size();
+        });
+
+        OrderSubmitVO vo = orderService.submit(submitDTO(new BigDecimal("1")));
+
+        //12.5*2 + 8*1 + 打包费2，提交的金额与计算结果不一致时以计算结果为准
+        assertEquals(0, new BigDecimal("35").compareTo(vo.getOrderAmount()));
+        assertEquals(100L, vo.getId());
+        assertEquals(1, batches.size());
+        List<OrderDetail> details = batches.get(0);
+        assertEquals(cart.size(), details.size());
+        for (OrderDetail detail : details) {
+            assertEquals(100L, detail.getOrderId());
+        }
+        assertEquals(Arrays.asList("宫保鸡丁", "米饭套餐"), Arrays.asList(details.get(0).getName(), details.get(1).getName()));
+        verify(transactionTemplate).executeWithoutResult(any());
+        verify(cartStore, never()).restore(any(), any());
+        verify(orderDeadlineScheduler).schedulePaymentTimeout(eq(100L), eq(vo.getOrderTime()));
+        verify(orderPushService).push(any(OrderPushEvent.class));
+    }
+
+    /**
+     * 写入失败时取出的商品放回购物车，不登记超时也不推送
+     */
+    @Test
+    public void submitRestoresCartWhenInsertFails() {
+        List<ShoppingCart> cart = cart();
+        when(addressBookMapper.getByIdAndUserId(5L, USER_ID)).thenReturn(addressBook());
+        when(cartStore.claim(USER_ID)).thenReturn(cart);
+        doThrow(new IllegalStateException("insert failed")).when(orderDetailMapper).insertBatch(any());
+
+        assertThrows(IllegalStateException.class, () -> orderService.submit(submitDTO(null)));
+
+        verify(cartStore).restore(USER_ID, cart);
+        verify(orderDeadlineScheduler, never()).schedulePaymentTimeout(any(), any());
+        verify(orderPushService, never()).push(any());
+    }
+
+    @Test
+    public void submitRejectsEmptyCartAndMissingAddress() {
+        when(addressBookMapper.getByIdAndUserId(5L, USER_ID)).thenReturn(null);
+        assertThrows(AddressBookBusinessException.class, () -> orderService.submit(submitDTO(null)));
+        verify(cartStore, never()).claim(any());
+
+        when(addressBookMapper.getByIdAndUserId(5L, USER_ID)).thenReturn(addressBook());
+        when(cartStore.claim(USER_ID)).thenReturn(Collections.emptyList());
+        assertThrows(ShoppingCartBusinessException.class, () -> orderService.submit(submitDTO(null)));
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    private static List<ShoppingCart> cart() {
+        return Arrays.asList(
+                ShoppingCart.builder().name("宫保鸡丁").dishId(1L).dishFlavor("微辣").number(2)
+                        .amount(new BigDecimal("12.5")).build(),
+                ShoppingCart.builder().name("米饭套餐").setmealId(2L).number(1)
+                        .amount(new BigDecimal("8")).build());
+    }
+
+    private static AddressBook addressBook() {
+        return AddressBook.builder().id(5L).userId(USER_ID).consignee("张三").phone("13800000000")
+                .provinceName("北京市").cityName("北京市").districtName("海淀区").detail("1号").build();
+    }
+
+    private static OrdersSubmitDTO submitDTO(BigDecimal amount) {
+        OrdersSubmitDTO dto = new OrdersSubmitDTO();
+        dto.setAddressBookId(5L);
+        dto.setPackAmount(2);
+        dto.setAmount(amount);
+        return dto;
+    }
+
+    private static Orders order(Integer status) {
+        return Orders.builder().id(1L).userId(USER_ID).number("N1").status(status).build();
+    }
+}
@@ -0,0 +1,185 @@
+package com.sky.service.impl;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.sky.cart.CartStore;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.entity.AddressBook;
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.order.OrderDeadlineScheduler;
+import com.sky.utils.SnowflakeIdGenerator;
+import com.sky.websocket.OrderPushService;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * 下单写入路径的吞吐。
+ * 使用真实的OrderMapper.xml、OrderDetailMapper.xml和Spring事务，多个线程并发调用OrderServiceImpl.submit，
+ * 购物车、地址簿、超时登记和推送用模拟对象代替，只测量数据库写入。每个订单3条明细，结束后输出每秒订单数，
+ * 并删除测试写入的订单和明细（user_id为负数）。会向orders、order_detail表写入数据，请使用测试库。
+ * 需要数据库，默认跳过，运行方式：
+ * mvn test -pl sky-server -am -Dtest=OrderSubmitLoadTest -DfailIfNoTests=false
+ *     -Dsky.benchmark.jdbc-url="jdbc:mysql://localhost:3306/sky_take_out?useSSL=false&allowPublicKeyRetrieval=true"
+ *     -Dsky.benchmark.username=root -Dsky.benchmark.password=123456
+ */
+@EnabledIfSystemProperty(named = "sky.benchmark.jdbc-url", matches = ".+")
+public class OrderSubmitLoadTest {
+
+    private static final long USER_ID = -18L;
+    private static final int THREADS = Integer.getInteger("sky.benchmark.threads", 32);
+    private static final int ORDERS = Integer.getInteger("sky.benchmark.orders", 20_000);
+    private static final int WARM_UP = 500;
+
+    @Test
+    public void submitThroughput() throws Exception {
+        String url = System.getProperty("sky.benchmark.jdbc-url");
+        String username = System.getProperty("sky.benchmark.username", "root");
+        String password = System.getProperty("sky.benchmark.password", "");
+        //先直接连接一次，数据库不可用时立即失败，连接池会在后台不断重连
+        DriverManager.getConnection(url, username, password).close();
+
+        DruidDataSource dataSource = new DruidDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaxActive(THREADS);
+        dataSource.setMaxWait(10_000);
+        try {
+            OrderServiceImpl orderService = orderService(dataSource);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                run(orderService, executor, WARM_UP);
+                long start = System.nanoTime();
+                run(orderService, executor, ORDERS);
+                long nanos = System.nanoTime() - start;
+
+                assertEquals(WARM_UP + ORDERS, count(dataSource, "select count(*) from orders where user_id = ?"));
+                assertEquals((WARM_UP + ORDERS) * 3L, count(dataSource,
+                        "select count(*) from order_detail d join orders o on d.order_id = o.id where o.user_id = ?"));
+                System.out.printf("threads=%d orders=%d elapsed=%dms throughput=%.0f orders/s%n",
+                        THREADS, ORDERS, nanos / 1_000_000, ORDERS / (nanos / 1e9));
+            } finally {
+                executor.shutdownNow();
+                cleanUp(dataSource);
+            }
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    private static OrderServiceImpl orderService(DruidDataSource dataSource) throws Exception {
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setMapperLocations(new ClassPathResource("mapper/OrderMapper.xml"),
+                new ClassPathResource("mapper/OrderDetailMapper.xml"));
+        factoryBean.setTypeAliasesPackage("com.sky.entity");
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        factoryBean.setConfiguration(configuration);
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        SqlSessionTemplate sqlSession = new SqlSessionTemplate(sqlSessionFactory);
+
+        AddressBookMapper addressBookMapper = Mockito.mock(AddressBookMapper.class, Mockito.withSettings().stubOnly());
+        when(addressBookMapper.getByIdAndUserId(any(), anyLong())).thenReturn(AddressBook.builder()
+                .id(1L).userId(USER_ID).consignee("压测").phone("13800000000").detail("压测地址").build());
+        //每次下单都取出一个新的购物车
+        CartStore cartStore = Mockito.mock(CartStore.class, Mockito.withSettings().stubOnly());
+        when(cartStore.claim(anyLong())).thenAnswer(invocation -> Arrays.asList(
+                ShoppingCart.builder().name("宫保鸡丁").dishId(1L).dishFlavor("微辣").number(2)
+                        .amount(new BigDecimal("12.5")).build(),
+                ShoppingCart.builder().name("米饭").dishId(2L).number(2).amount(new BigDecimal("2")).build(),
+                ShoppingCart.builder().name("单人套餐").setmealId(1L).number(1).amount(new BigDecimal("30")).build()));
+
+        OrderServiceImpl orderService = new OrderServiceImpl();
+        ReflectionTestUtils.setField(orderService, "orderMapper", sqlSession.getMapper(OrderMapper.class));
+        ReflectionTestUtils.setField(orderService, "orderDetailMapper", sqlSession.getMapper(OrderDetailMapper.class));
+        ReflectionTestUtils.setField(orderService, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(orderService, "snowflakeIdGenerator", new SnowflakeIdGenerator(1));
+        ReflectionTestUtils.setField(orderService, "addressBookMapper", addressBookMapper);
+        ReflectionTestUtils.setField(orderService, "cartStore", cartStore);
+        ReflectionTestUtils.setField(orderService, "orderDeadlineScheduler",
+                Mockito.mock(OrderDeadlineScheduler.class, Mockito.withSettings().stubOnly()));
+        ReflectionTestUtils.setField(orderService, "orderPushService",
+                Mockito.mock(OrderPushService.class, Mockito.withSettings().stubOnly()));
+        return orderService;
+    }
+
+    private static void run(OrderServiceImpl orderService, ExecutorService executor, int orders) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int count = orders / THREADS + (t < orders % THREADS ? 1 : 0);
+            futures.add(executor.submit(() -> {
+                BaseContext.setCurrentId(USER_ID);
+                OrdersSubmitDTO dto = new OrdersSubmitDTO();
+                dto.setAddressBookId(1L);
+                dto.setPayMethod(1);
+                dto.setPackAmount(2);
+                dto.setTablewareStatus(1);
+                start.await();
+                for (int i = 0; i < count; i++) {
+                    orderService.submit(dto);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private static long count(DruidDataSource dataSource, String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, USER_ID);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static void cleanUp(DruidDataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : new String[]{
+                    "delete d from order_detail d join orders o on d.order_id = o.id where o.user_id = ?",
+                    "delete from orders where user_id = ?"}) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, USER_ID);
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+}
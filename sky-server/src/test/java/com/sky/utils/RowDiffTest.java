@@ -0,0 +1,89 @@
+package com.sky.utils;
+
+import com.sky.entity.DishFlavor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RowDiffTest {
+
+    @Test
+    public void unchangedRowsProduceEmptyDiff() {
+        RowDiff<DishFlavor> diff = diff(
+                Arrays.asList(flavor(1L, "辣度", "[\"微辣\",\"中辣\"]"), flavor(2L, "忌口", "[\"不要葱\"]")),
+                Arrays.asList(flavor(null, "忌口", "[\"不要葱\"]"), flavor(null, "辣度", "[\"微辣\",\"中辣\"]")));
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void detectsInsertUpdateAndDelete() {
+        DishFlavor changed = flavor(99L, "辣度", "[\"重辣\"]");
+        DishFlavor added = flavor(98L, "温度", "[\"热饮\"]");
+        RowDiff<DishFlavor> diff = diff(
+                Arrays.asList(flavor(1L, "辣度", "[\"微辣\"]"), flavor(2L, "忌口", "[\"不要葱\"]")),
+                Arrays.asList(changed, added));
+
+        assertEquals(Collections.singletonList(added), diff.getInserts());
+        //新增的行忽略提交的id
+        assertNull(added.getId());
+        assertEquals(Collections.singletonList(changed), diff.getUpdates());
+        //修改的行使用数据库中对应行的id
+        assertEquals(1L, changed.getId());
+        assertEquals(Collections.singletonList(2L), diff.getDeleteIds());
+    }
+
+    @Test
+    public void emptyIncomingDeletesAll() {
+        RowDiff<DishFlavor> diff = diff(Arrays.asList(flavor(1L, "辣度", "[]"), flavor(2L, "忌口", "[]")),
+                Collections.emptyList());
+        assertEquals(Arrays.asList(1L, 2L), sorted(diff.getDeleteIds()));
+        assertTrue(diff.getInserts().isEmpty());
+        assertTrue(diff.getUpdates().isEmpty());
+    }
+
+    @Test
+    public void duplicateKeysPairInOrder() {
+        DishFlavor first = flavor(null, "辣度", "[\"微辣\"]");
+        DishFlavor second = flavor(null, "辣度", "[\"中辣\"]");
+        DishFlavor third = flavor(null, "辣度", "[\"重辣\"]");
+        RowDiff<DishFlavor> diff = diff(
+                Arrays.asList(flavor(1L, "辣度", "[\"微辣\"]"), flavor(2L, "辣度", "[\"微辣\"]")),
+                Arrays.asList(first, second, third));
+
+        //第一行与数据库中的第一行相同，不需要写入
+        assertEquals(Collections.singletonList(second), diff.getUpdates());
+        assertEquals(2L, second.getId());
+        assertEquals(Collections.singletonList(third), diff.getInserts());
+        assertTrue(diff.getDeleteIds().isEmpty());
+    }
+
+    @Test
+    public void unchangedHasNoOperations() {
+        assertTrue(RowDiff.unchanged().isEmpty());
+    }
+
+    private static RowDiff<DishFlavor> diff(List<DishFlavor> stored, List<DishFlavor> incoming) {
+        return RowDiff.of(stored, incoming, DishFlavor::getName,
+                (a, b) -> Objects.equals(a.getValue(), b.getValue()), DishFlavor::getId, DishFlavor::setId);
+    }
+
+    private static DishFlavor flavor(Long id, String name, String value) {
+        DishFlavor flavor = new DishFlavor();
+        flavor.setId(id);
+        flavor.setName(name);
+        flavor.setValue(value);
+        return flavor;
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        ids.sort(Long::compareTo);
+        return ids;
+    }
+}
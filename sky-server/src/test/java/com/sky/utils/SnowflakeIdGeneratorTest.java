@@ -0,0 +1,132 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    /**
+     * 多线程并发生成，所有id唯一，每个线程看到的id严格递增
+     */
+    @Test
+    public void concurrentIdsAreUnique() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        List<long[]> results = generateConcurrently(generator, generator);
+
+        Set<Long> ids = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+        for (long[] chunk : results) {
+            for (int i = 0; i < chunk.length; i++) {
+                assertTrue(ids.add(chunk[i]), "重复的id：" + chunk[i]);
+                if (i > 0) {
+                    assertTrue(chunk[i] > chunk[i - 1]);
+                }
+            }
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+        assertEquals(7, generator.getNodeId());
+    }
+
+    /**
+     * 不同节点同时生成的id不重复
+     */
+    @Test
+    public void differentNodesNeverCollide() throws Exception {
+        SnowflakeIdGenerator node1 = new SnowflakeIdGenerator(1);
+        SnowflakeIdGenerator node2 = new SnowflakeIdGenerator(2);
+        Set<Long> ids = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+        for (long[] chunk : generateConcurrently(node1, node2)) {
+            for (long id : chunk) {
+                assertTrue(ids.add(id), "重复的id：" + id);
+            }
+        }
+    }
+
+    /**
+     * 已发出的时间戳领先于系统时钟（等同于时钟回拨）时继续在已发出的时间戳上递增，不回退、不重复
+     */
+    @Test
+    public void clockBehindLastTimestampKeepsIncreasing() {
+        long future = System.currentTimeMillis() + 10_000;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, future);
+        long previous = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertTrue(SnowflakeIdGenerator.timestampOf(id) >= future);
+            previous = id;
+        }
+        //序列号用完后借用下一毫秒，4096个一毫秒
+        assertTrue(generator.getLastTimestamp() >= future + 100_000 / 4096);
+    }
+
+    /**
+     * 更换节点id后，id的时间戳在新节点id上一个持有者用过的时间戳之后
+     */
+    @Test
+    public void changeNodeIdSkipsPastPreviousHolder() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        generator.nextId();
+        long previousHolderTimestamp = System.currentTimeMillis() + 5_000;
+
+        generator.changeNodeId(9, previousHolderTimestamp);
+        assertEquals(9, generator.getNodeId());
+        long id = generator.nextId();
+        assertTrue(SnowflakeIdGenerator.timestampOf(id) > previousHolderTimestamp);
+        assertEquals(9, (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID);
+    }
+
+    @Test
+    public void rejectsInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    /**
+     * 一半线程用first生成，一半用second生成，所有线程同时开始
+     */
+    private static List<long[]> generateConcurrently(SnowflakeIdGenerator first, SnowflakeIdGenerator second)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                SnowflakeIdGenerator generator = t % 2 == 0 ? first : second;
+                Callable<long[]> task = () -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
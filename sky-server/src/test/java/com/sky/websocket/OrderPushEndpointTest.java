@@ -0,0 +1,214 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.properties.WebSocketProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 1000个模拟连接的批量推送：正常连接按顺序收到全部消息且突发消息被合并成少量帧，
+ * 不再确认发送完成的连接在队列满后被断开，发布线程不会被慢连接阻塞
+ */
+public class OrderPushEndpointTest {
+
+    private static final int SESSIONS = 1000;
+    private static final int STALLED_SESSIONS = 100;
+    private static final int PUBLISHERS = 4;
+    private static final int EVENTS_PER_PUBLISHER = 500;
+    private static final int BURST_SIZE = 20;
+
+    private final WebSocketProperties properties = new WebSocketProperties();
+
+    private OrderPushEndpoint endpoint;
+
+    private ExecutorService sendExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        endpoint = new OrderPushEndpoint();
+        ReflectionTestUtils.setField(endpoint, "properties", properties);
+        endpoint.init();
+        //模拟容器的异步发送：发送完成的回调在其他线程执行
+        sendExecutor = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        endpoint.destroy();
+        sendExecutor.shutdownNow();
+    }
+
+    @Test
+    public void fanOutToThousandSessions() throws Exception {
+        List<SimulatedSession> sessions = new ArrayList<>();
+        Map<String, SessionOutbox> outboxes = outboxes();
+        for (int i = 0; i < SESSIONS; i++) {
+            SimulatedSession simulated = new SimulatedSession("s" + i, i < STALLED_SESSIONS);
+            sessions.add(simulated);
+            outboxes.put(simulated.session.getId(), new SessionOutbox(simulated.session,
+                    properties.getQueueCapacity(), properties.getMaxBatchSize()));
+        }
+
+        ExecutorService publishers = Executors.newFixedThreadPool(PUBLISHERS);
+        CountDownLatch start = new CountDownLatch(1);
+        long publishNanos;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < PUBLISHERS; p++) {
+                int publisher = p;
+                futures.add(publishers.submit(() -> {
+                    start.await();
+                    for (int seq = 0; seq < EVENTS_PER_PUBLISHER; seq++) {
+                        endpoint.broadcast("{\"p\":" + publisher + ",\"seq\":" + seq + "}");
+                        //每个发布者每毫秒突发一批消息
+                        if (seq % BURST_SIZE == BURST_SIZE - 1) {
+                            Thread.sleep(1);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            publishNanos = System.nanoTime() - begin;
+        } finally {
+            publishers.shutdownNow();
+        }
+
+        int total = PUBLISHERS * EVENTS_PER_PUBLISHER;
+        long deadline = System.currentTimeMillis() + 30_000;
+        for (SimulatedSession simulated : sessions.subList(STALLED_SESSIONS, SESSIONS)) {
+            while (simulated.received() < total && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+
+        long frames = 0;
+        for (SimulatedSession simulated : sessions.subList(STALLED_SESSIONS, SESSIONS)) {
+            assertTrue(!simulated.closed.get(), simulated.session.getId());
+            frames += simulated.frames.size();
+            //每个发布者的消息按发布顺序到达
+            int[] next = new int[PUBLISHERS];
+            int count = 0;
+            for (String frame : simulated.frames) {
+                for (Object item : JSON.parseArray(frame)) {
+                    Map<?, ?> message = (Map<?, ?>) item;
+                    int publisher = ((Number) message.get("p")).intValue();
+                    assertEquals(next[publisher]++, ((Number) message.get("seq")).intValue());
+                    count++;
+                }
+            }
+            assertEquals(total, count, simulated.session.getId());
+        }
+        for (SimulatedSession simulated : sessions.subList(0, STALLED_SESSIONS)) {
+            waitUntil(simulated.closed);
+            assertTrue(simulated.closed.get(), simulated.session.getId());
+        }
+
+        assertEquals(SESSIONS - STALLED_SESSIONS, endpoint.getSessionCount());
+        long deliveries = (long) (SESSIONS - STALLED_SESSIONS) * total;
+        assertTrue(frames < deliveries, "突发消息应当合并发送，帧数" + frames + "，消息数" + deliveries);
+        System.out.printf("sessions=%d stalled=%d events=%d deliveries=%d frames=%d publish=%dms%n",
+                SESSIONS, STALLED_SESSIONS, total, deliveries, frames, TimeUnit.NANOSECONDS.toMillis(publishNanos));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, SessionOutbox> outboxes() {
+        return (Map<String, SessionOutbox>) ReflectionTestUtils.getField(endpoint, "outboxes");
+    }
+
+    private static void waitUntil(AtomicBoolean flag) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!flag.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 模拟连接：正常连接异步确认每一帧，卡住的连接从不确认，相当于客户端不再接收。
+     * 用动态代理实现Session和RemoteEndpoint.Async，模拟的开销尽量小，测试的是推送本身的吞吐
+     */
+    private class SimulatedSession {
+
+        private final Queue<String> frames = new ConcurrentLinkedQueue<>();
+
+        private final AtomicLong messages = new AtomicLong();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private final Session session;
+
+        SimulatedSession(String id, boolean stalled) {
+            RemoteEndpoint.Async async = proxy(RemoteEndpoint.Async.class, (method, args) -> {
+                if ("sendText".equals(method.getName()) && args.length == 2) {
+                    String frame = (String) args[0];
+                    SendHandler handler = (SendHandler) args[1];
+                    frames.add(frame);
+                    //每条消息是一个不含嵌套的JSON对象，数左花括号即可得到消息数
+                    messages.addAndGet(frame.chars().filter(c -> c == '{').count());
+                    if (!stalled) {
+                        sendExecutor.execute(() -> handler.onResult(new SendResult()));
+                    }
+                }
+                return null;
+            });
+            session = proxy(Session.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "getId":
+                        return id;
+                    case "getAsyncRemote":
+                        return async;
+                    case "close":
+                        closed.set(true);
+                        return null;
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        long received() {
+            return messages.get();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, BiFunction<Method, Object[], Object> handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return "hashCode".equals(method.getName()) ? System.identityHashCode(proxy)
+                                : "equals".equals(method.getName()) ? proxy == args[0] : type.getSimpleName();
+                    }
+                    return handler.apply(method, args == null ? new Object[0] : args);
+                });
+    }
+}